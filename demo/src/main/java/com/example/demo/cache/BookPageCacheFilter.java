@@ -0,0 +1,140 @@
+package com.example.demo.cache;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.example.demo.services.BookVersionService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Условные GET-запросы и кэш отрисованной страницы книги для анонимных пользователей.
+ * Страница идентифицируется версией книги из {@link BookVersionService}: пока версия
+ * не изменилась, ответ отдаётся из памяти или кодом 304 без обращения к БД.
+ * Фильтр регистрируется после Spring Security, поэтому контекст аутентификации уже заполнен.
+ */
+@Component
+public class BookPageCacheFilter extends OncePerRequestFilter {
+
+    private static final Pattern BOOK_PAGE = Pattern.compile("^/books/book/(\\d+)$");
+    private static final Set<String> CACHEABLE_PARAMS = Set.of("sort", "page");
+    private static final int MAX_CACHED_PAGES = 500;
+
+    private static final class CachedPage {
+        final long version;
+        final byte[] body;
+        final String contentType;
+
+        CachedPage(long version, byte[] body, String contentType) {
+            this.version = version;
+            this.body = body;
+            this.contentType = contentType;
+        }
+    }
+
+    private final BookVersionService bookVersionService;
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+    private final LruCache<String, CachedPage> pages = new LruCache<>(MAX_CACHED_PAGES, 0);
+
+    public BookPageCacheFilter(BookVersionService bookVersionService) {
+        this.bookVersionService = bookVersionService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        if (!BOOK_PAGE.matcher(request.getRequestURI().substring(request.getContextPath().length())).matches()) {
+            return true;
+        }
+        // Сообщения об ошибках/успехе и прочие параметры не кэшируем
+        for (String name : request.getParameterMap().keySet()) {
+            if (!CACHEABLE_PARAMS.contains(name)) {
+                return true;
+            }
+        }
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && !trustResolver.isAnonymous(authentication);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Matcher matcher = BOOK_PAGE.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+        matcher.matches();
+        Long bookId = Long.valueOf(matcher.group(1));
+
+        String sort = "old".equals(request.getParameter("sort")) ? "old" : "new";
+        String page = request.getParameter("page") != null ? request.getParameter("page") : "0";
+        String variant = sort + "-" + page;
+
+        long version = bookVersionService.getVersion(bookId);
+        String etag = bookVersionService.etag(bookId, version, variant);
+
+        if (isNotModified(request, etag)) {
+            writeValidators(response, etag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String key = bookId + ":" + variant;
+        CachedPage cached = pages.getIfPresent(key);
+        if (cached != null && cached.version == version) {
+            writeValidators(response, etag);
+            response.setContentType(cached.contentType);
+            response.setContentLength(cached.body.length);
+            response.getOutputStream().write(cached.body);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        writeValidators(wrapper, etag);
+        filterChain.doFilter(request, wrapper);
+
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && wrapper.getContentType() != null) {
+            // Сохраняем с версией, полученной до отрисовки: если книга изменилась во время
+            // отрисовки, следующий запрос увидит новую версию и перерисует страницу
+            pages.put(key, new CachedPage(version, wrapper.getContentAsByteArray(),
+                    wrapper.getContentType()));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    // Только по If-None-Match: If-Modified-Since без Last-Modified не даёт 304
+    private boolean isNotModified(HttpServletRequest request, String etag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeValidators(HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        // Разрешаем хранить страницу, но требуем проверки актуальности при каждом запросе
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+    }
+}
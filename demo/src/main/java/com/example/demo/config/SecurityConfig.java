@@ -17,8 +17,9 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(requests -> requests
-                .requestMatchers("/", "/books", "/books/book/**", "/login", "/register", "/css/**", "/js/**", "/uploads/**", "/static/**", "/images/**", "/search").permitAll()
+                .requestMatchers("/", "/books", "/books/genres", "/books/book/**", "/login", "/register", "/css/**", "/js/**", "/uploads/**", "/static/**", "/images/**", "/search", "/search/suggest").permitAll()
                 .requestMatchers("/books/add", "/books/update-status").authenticated()
+                .requestMatchers("/recommendations/runs/**", "/search/cache-stats").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .formLogin(form -> form
@@ -5,15 +5,18 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -23,15 +26,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.example.demo.models.Book;
+import com.example.demo.models.BookReadingStats;
+import com.example.demo.models.GenreFacet;
 import com.example.demo.models.Quote;
 import com.example.demo.models.ReadingStatus;
 import com.example.demo.models.Review;
+import com.example.demo.models.ReviewThread;
 import com.example.demo.models.User;
 import com.example.demo.models.UserBook;
 import com.example.demo.repositories.BookRepository;
@@ -39,12 +46,20 @@ import com.example.demo.repositories.QuoteRepository;
 import com.example.demo.repositories.ReviewRepository;
 import com.example.demo.repositories.UserBookRepository;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.BookShelfService;
+import com.example.demo.services.BookStatsService;
+import com.example.demo.services.GenreFacetService;
+import com.example.demo.services.ReviewThreadService;
+import com.example.demo.services.UserShelfService;
 
 @Controller
 @RequestMapping("/books")
 public class BookController {
     
     private static final Logger logger = LoggerFactory.getLogger(BookController.class);
+
+    private static final int MAX_PAGE_SIZE = 96;
+    private static final int REVIEWS_PAGE_SIZE = 20;
     
     @Value("${upload.path:/uploads}")
     private String uploadPath;
@@ -64,43 +79,79 @@ public class BookController {
     @Autowired
     private QuoteRepository quoteRepository;
 
+    @Autowired
+    private GenreFacetService genreFacetService;
+
+    @Autowired
+    private BookShelfService bookShelfService;
+
+    @Autowired
+    private BookStatsService bookStatsService;
+
+    @Autowired
+    private ReviewThreadService reviewThreadService;
+
+    @Autowired
+    private UserShelfService userShelfService;
+
     @GetMapping
-    public String listBooks(@RequestParam(required = false) String genre, Model model, Authentication authentication) {
+    public String listBooks(@RequestParam(required = false) String genre,
+                            @RequestParam(required = false) Long after,
+                            @RequestParam(required = false) Long before,
+                            @RequestParam(defaultValue = "24") int size,
+                            Model model, Authentication authentication) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        boolean hasGenre = genre != null && !genre.isEmpty();
+        // Запрашиваем на одну запись больше, чтобы понять, есть ли следующая страница
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
         List<Book> books;
-        if (genre != null && !genre.isEmpty()) {
-            books = bookRepo.findByGenre(genre);
+        boolean hasNext;
+        boolean hasPrev;
+        if (before != null) {
+            books = new ArrayList<>(hasGenre
+                ? bookRepo.findPageByGenreBefore(genre, before, limit)
+                : bookRepo.findPageBefore(before, limit));
+            hasPrev = books.size() > pageSize;
+            if (hasPrev) {
+                books.remove(books.size() - 1);
+            }
+            Collections.reverse(books);
+            hasNext = true;
         } else {
-            books = bookRepo.findAll();
+            books = new ArrayList<>(hasGenre
+                ? bookRepo.findPageByGenreAfter(genre, after, limit)
+                : bookRepo.findPageAfter(after, limit));
+            hasNext = books.size() > pageSize;
+            if (hasNext) {
+                books.remove(books.size() - 1);
+            }
+            hasPrev = after != null;
         }
-        
-        // Получаем список всех уникальных жанров
-        List<String> genres = bookRepo.findAll().stream()
-            .map(Book::getGenre)
-            .distinct()
-            .filter(g -> g != null && !g.isEmpty())
-            .collect(Collectors.toList());
-        
+
         // Если пользователь авторизован, получаем статусы его книг
         if (authentication != null) {
             User user = userRepo.findByUsername(authentication.getName());
             if (user != null) {
-                List<UserBook> userBooks = userBookRepo.findByUser(user);
-                Map<Long, UserBook> userBookMap = userBooks.stream()
-                    .collect(Collectors.toMap(
-                        ub -> ub.getBook().getId(),
-                        ub -> ub,
-                        (existing, replacement) -> existing // В случае дубликатов оставляем первую запись
-                    ));
-                model.addAttribute("userBooks", userBookMap);
+                model.addAttribute("userBooks", userShelfService.getShelf(user));
             }
         }
         
         model.addAttribute("books", books);
-        model.addAttribute("genres", genres);
+        model.addAttribute("genres", genreFacetService.getFacets());
         model.addAttribute("selectedGenre", genre);
+        model.addAttribute("pageSize", pageSize);
+        model.addAttribute("prevCursor", hasPrev && !books.isEmpty() ? books.get(0).getId() : null);
+        model.addAttribute("nextCursor", hasNext && !books.isEmpty() ? books.get(books.size() - 1).getId() : null);
         return "books";
     }
 
+    @GetMapping("/genres")
+    @ResponseBody
+    public List<GenreFacet> listGenres() {
+        return genreFacetService.getFacets();
+    }
+
     @PostMapping("/add")
     public String addBook(@RequestParam("bookId") Long bookId,
                          @RequestParam("status") String statusStr,
@@ -129,20 +180,9 @@ public class BookController {
                 return getRedirectUrl(returnTo, bookId, "error=already_exists", genre);
             }
 
-            UserBook userBook = new UserBook();
-            userBook.setUser(user);
-            userBook.setBook(book);
-            
             try {
                 ReadingStatus status = ReadingStatus.valueOf(statusStr);
-                userBook.setStatus(status);
-                
-                // Устанавливаем дату завершения, если статус "Прочитано"
-                if (status == ReadingStatus.FINISHED) {
-                    userBook.setFinishedDate(LocalDateTime.now());
-                }
-                
-                userBookRepo.save(userBook);
+                bookShelfService.addBook(user, book, status);
                 logger.info("Successfully added book to user's list with status: {}", status);
                 return getRedirectUrl(returnTo, bookId, "success", genre);
             } catch (IllegalArgumentException e) {
@@ -164,20 +204,8 @@ public class BookController {
         try {
             User user = userRepo.findByUsername(authentication.getName());
             Book book = bookRepo.findById(bookId).orElseThrow();
-            UserBook userBook = userBookRepo.findByUserAndBook(user, book);
-            
             ReadingStatus newStatus = ReadingStatus.valueOf(statusStr);
-            
-            if (userBook != null) {
-                // Если статус меняется на FINISHED, устанавливаем дату завершения
-                if (newStatus == ReadingStatus.FINISHED && userBook.getStatus() != ReadingStatus.FINISHED) {
-                    userBook.setFinishedDate(LocalDateTime.now());
-                } else if (newStatus != ReadingStatus.FINISHED) {
-                    userBook.setFinishedDate(null);
-                }
-                userBook.setStatus(newStatus);
-                userBookRepo.save(userBook);
-            }
+            bookShelfService.updateStatus(user, book, newStatus);
             
             return getRedirectUrl(returnTo, bookId, "success", genre);
         } catch (Exception e) {
@@ -198,10 +226,8 @@ public class BookController {
         try {
             User user = userRepo.findByUsername(authentication.getName());
             Book book = bookRepo.findById(bookId).orElseThrow();
-            UserBook userBook = userBookRepo.findByUserAndBook(user, book);
             
-            if (userBook != null) {
-                userBookRepo.delete(userBook);
+            if (bookShelfService.removeBook(user, book)) {
                 return getRedirectUrl(returnTo, bookId, "success", genre);
             }
             
@@ -224,19 +250,14 @@ public class BookController {
             User user = userRepo.findByUsername(authentication.getName());
             Book book = bookRepo.findById(bookId).orElseThrow();
             
-            // Получаем существующую запись UserBook
-            UserBook userBook = userBookRepo.findByUserAndBook(user, book);
-            
             // Проверяем валидность оценки (1-10)
             if (rating < 1 || rating > 10) {
                 return "redirect:/books/book/" + bookId + "?error=invalid_rating";
             }
             
             // Если запись существует и у неё есть статус, обновляем оценку
-            if (userBook != null && userBook.getStatus() != null) {
-            userBook.setRating(rating);
-            userBookRepo.save(userBook);
-            return "redirect:/books/book/" + bookId + "?success=rating_updated";
+            if (bookShelfService.rateBook(user, book, rating) != null) {
+                return "redirect:/books/book/" + bookId + "?success=rating_updated";
             } else {
                 return "redirect:/books/book/" + bookId + "?error=no_status";
             }
@@ -400,18 +421,7 @@ public class BookController {
         try {
             User user = userRepo.findByUsername(authentication.getName());
             Book book = bookRepo.findById(bookId).orElseThrow();
-            
-            // Получаем или создаем запись UserBook
-            UserBook userBook = userBookRepo.findByUserAndBook(user, book);
-            if (userBook == null) {
-                userBook = new UserBook();
-                userBook.setUser(user);
-                userBook.setBook(book);
-            }
-            
-            // Переключаем статус избранного
-            userBook.setFavorite(!userBook.isFavorite());
-            userBookRepo.save(userBook);
+            bookShelfService.toggleFavorite(user, book);
             
             return "redirect:/books/book/" + bookId + "?success=favorite_updated";
         } catch (Exception e) {
@@ -451,6 +461,7 @@ public class BookController {
     @GetMapping("/book/{id}")
     public String viewBook(@PathVariable Long id, 
                          @RequestParam(required = false) String sort,
+                         @RequestParam(defaultValue = "0") int page,
                          Model model, 
                          Authentication authentication) {
         Book book = bookRepo.findById(id).orElse(null);
@@ -473,44 +484,25 @@ public class BookController {
             }
         }
 
-        // Get all root reviews (without parent)
-        List<Review> reviews;
-        if ("old".equals(sort)) {
-            reviews = reviewRepo.findByBookAndParentReviewIsNullOrderByCreatedAtAsc(book);
-        } else {
-            reviews = reviewRepo.findByBookAndParentReviewIsNullOrderByCreatedAtDesc(book);
-        }
-
-        // Count books by status
-        long readingCount = userBookRepo.countByBookAndStatus(book, ReadingStatus.READING);
-        long finishedCount = userBookRepo.countByBookAndStatus(book, ReadingStatus.FINISHED);
-        long plannedCount = userBookRepo.countByBookAndStatus(book, ReadingStatus.WANT_TO_READ);
-        long droppedCount = userBookRepo.countByBookAndStatus(book, ReadingStatus.DROPPED);
+        // Страница корневых отзывов вместе с ответами и авторами
+        Page<ReviewThread> reviews = reviewThreadService.loadThreads(book.getId(), "old".equals(sort),
+            Math.max(page, 0), REVIEWS_PAGE_SIZE);
 
-        // Calculate average rating
-        List<UserBook> ratedBooks = userBookRepo.findByBookAndRatingIsNotNull(book);
-        double averageRating = 0.0;
-        int totalRatings = 0;
-        
-        if (!ratedBooks.isEmpty()) {
-            int sumRatings = ratedBooks.stream()
-                .mapToInt(UserBook::getRating)
-                .sum();
-            totalRatings = ratedBooks.size();
-            averageRating = Math.round((double) sumRatings / totalRatings * 10.0) / 10.0;
-        }
+        // Счётчики по статусам и средняя оценка из таблицы book_stats
+        BookReadingStats stats = bookStatsService.getStats(book.getId());
 
         model.addAttribute("book", book);
         model.addAttribute("userBook", userBook);
         model.addAttribute("reviews", reviews);
-        model.addAttribute("readingCount", readingCount);
-        model.addAttribute("finishedCount", finishedCount);
-        model.addAttribute("plannedCount", plannedCount);
-        model.addAttribute("droppedCount", droppedCount);
+        model.addAttribute("readingCount", stats.getReadingCount());
+        model.addAttribute("finishedCount", stats.getFinishedCount());
+        model.addAttribute("plannedCount", stats.getPlannedCount());
+        model.addAttribute("droppedCount", stats.getDroppedCount());
         model.addAttribute("isAuthenticated", authentication != null);
-        model.addAttribute("averageRating", averageRating);
-        model.addAttribute("totalRatings", totalRatings);
-        model.addAttribute("currentSort", sort != null ? sort : "new");
+        model.addAttribute("averageRating", stats.getAverageRating());
+        model.addAttribute("totalRatings", stats.getTotalRatings());
+        // Как и в BookPageCacheFilter: любое значение, кроме "old", - новые сначала
+        model.addAttribute("currentSort", "old".equals(sort) ? "old" : "new");
         model.addAttribute("isFavorite", isFavorite);
 
         return "book-details";
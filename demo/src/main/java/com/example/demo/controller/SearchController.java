@@ -3,27 +3,73 @@ package com.example.demo.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
+import com.example.demo.cache.CacheStats;
 import com.example.demo.models.Book;
-import com.example.demo.repositories.BookRepository;
+import com.example.demo.models.User;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.search.Suggestion;
+import com.example.demo.services.BookSearchService;
+import com.example.demo.services.BookSuggestionService;
+import com.example.demo.services.UserShelfService;
 
 @Controller
 public class SearchController {
 
+    private static final int PAGE_SIZE = 24;
+
+    @Autowired
+    private BookSearchService bookSearchService;
+
+    @Autowired
+    private BookSuggestionService bookSuggestionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
     @Autowired
-    private BookRepository bookRepository;
+    private UserShelfService userShelfService;
 
     @GetMapping("/search")
-    public String searchBooks(@RequestParam(required = false) String query, Model model) {
+    public String searchBooks(@RequestParam(required = false) String query,
+                              @RequestParam(defaultValue = "0") int page,
+                              Model model,
+                              Authentication authentication) {
         if (query != null && !query.trim().isEmpty()) {
-            List<Book> searchResults = bookRepository.searchBooks(query.trim());
+            Page<Book> searchResults = bookSearchService.search(query.trim(), Math.max(page, 0), PAGE_SIZE);
             model.addAttribute("books", searchResults);
             model.addAttribute("query", query);
+
+            // Отмечаем книги, которые уже есть в списке пользователя
+            if (authentication != null) {
+                User user = userRepository.findByUsername(authentication.getName());
+                if (user != null) {
+                    model.addAttribute("userBooks", userShelfService.getShelf(user));
+                }
+            }
         }
         return "search";
     }
-} 
\ No newline at end of file
+
+    // Подсказки для строки поиска: названия книг и авторы по началу введённого текста
+    @GetMapping("/search/suggest")
+    @ResponseBody
+    public List<Suggestion> suggest(@RequestParam("q") String prefix,
+                                    @RequestParam(defaultValue = "10") int limit) {
+        return bookSuggestionService.suggest(prefix, limit);
+    }
+
+    // Счётчики кэша результатов поиска (попадания/промахи) для подбора его размера
+    @GetMapping("/search/cache-stats")
+    @ResponseBody
+    public CacheStats cacheStats() {
+        return bookSearchService.getCacheStats();
+    }
+}
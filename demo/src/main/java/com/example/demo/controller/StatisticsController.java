@@ -1,13 +1,11 @@
 package com.example.demo.controller;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.OptionalInt;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,21 +17,24 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.example.demo.models.ReadingStatus;
+import com.example.demo.models.GenreFacet;
+import com.example.demo.models.ReadingPeriodCount;
 import com.example.demo.models.User;
-import com.example.demo.models.UserBook;
-import com.example.demo.repositories.UserBookRepository;
+import com.example.demo.repositories.UserReadingDailyRepository;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.statistics.ReadingHistogram;
 
 @RestController
 @RequestMapping("/api/user")
 public class StatisticsController {
+    // Минимальное значение DATE в MySQL: нижняя граница для периода "all"
+    private static final LocalDate EARLIEST_DATE = LocalDate.of(1000, 1, 1);
 
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private UserBookRepository userBookRepository;
+    private UserReadingDailyRepository userReadingDailyRepository;
 
     @GetMapping("/reading-statistics")
     public Map<String, Object> getReadingStatistics(Authentication authentication,
@@ -55,142 +56,61 @@ public class StatisticsController {
     }
 
     private Map<String, Object> getUserStatistics(User user, String period, String type) {
-        List<UserBook> finishedBooks = userBookRepository.findByUserAndStatus(user, ReadingStatus.FINISHED);
-
-        Map<String, Object> statistics = new HashMap<>();
-        statistics.put("readStats", getReadStats(finishedBooks, period, type));
-        statistics.put("genreStats", getGenreStats(finishedBooks, period, type));
-
-        return statistics;
-    }
-
-    private List<Map<String, Object>> getReadStats(List<UserBook> finishedBooks, String period, String type) {
-        final LocalDateTime now = LocalDateTime.now();
-        final LocalDateTime startDate;
-        final LocalDateTime endDate;
-        final String dateFormat;
-        final String labelFormat;
+        final LocalDate now = LocalDate.now();
+        final LocalDate startDate;
+        final LocalDate endDate;
+        final ReadingHistogram.Granularity granularity;
+        final List<ReadingPeriodCount> counts;
 
+        // Читаем дневную сводку user_reading_daily, сгруппированную в БД до нужных периодов
         switch (type) {
             case "month":
                 // Парсим месяц в формате "YYYY-MM"
                 final YearMonth yearMonth = YearMonth.parse(period);
-                startDate = yearMonth.atDay(1).atStartOfDay();
-                endDate = yearMonth.atEndOfMonth().atTime(23, 59, 59);
-                dateFormat = "yyyy-MM-dd";
-                labelFormat = "d MMMM";
+                startDate = yearMonth.atDay(1);
+                endDate = yearMonth.atEndOfMonth();
+                granularity = ReadingHistogram.Granularity.DAY;
+                counts = userReadingDailyRepository.countByDay(user.getId(), startDate, endDate);
                 break;
             case "year":
                 // Парсим год
                 final int year = Integer.parseInt(period);
-                startDate = LocalDateTime.of(year, 1, 1, 0, 0);
-                endDate = LocalDateTime.of(year, 12, 31, 23, 59, 59);
-                dateFormat = "yyyy-MM";
-                labelFormat = "MMMM";
+                startDate = LocalDate.of(year, 1, 1);
+                endDate = LocalDate.of(year, 12, 31);
+                granularity = ReadingHistogram.Granularity.MONTH;
+                counts = userReadingDailyRepository.countByMonth(user.getId(), startDate, endDate);
                 break;
             default: // "all"
-                startDate = finishedBooks.stream()
-                    .map(UserBook::getFinishedDate)
-                    .filter(Objects::nonNull)
-                    .min(LocalDateTime::compareTo)
-                    .orElse(now.minusYears(1));
                 endDate = now;
-                dateFormat = "yyyy";
-                labelFormat = "yyyy";
+                granularity = ReadingHistogram.Granularity.YEAR;
+                counts = userReadingDailyRepository.countByYear(user.getId(), EARLIEST_DATE, endDate);
+                final OptionalInt firstYear = counts.stream().mapToInt(ReadingPeriodCount::getYear).min();
+                startDate = firstYear.isPresent() ? LocalDate.of(firstYear.getAsInt(), 1, 1) : now.minusYears(1);
                 break;
         }
 
-        // Создаем Map для всех периодов
-        Map<String, Long> periodCount = new LinkedHashMap<>();
-        
-        // Инициализируем все периоды нулевыми значениями
-        LocalDateTime currentDate = startDate;
-        while (!currentDate.isAfter(endDate)) {
-            String periodKey = currentDate.format(DateTimeFormatter.ofPattern(dateFormat));
-            periodCount.put(periodKey, 0L);
-            
-            // Увеличиваем дату в зависимости от типа периода
-            if (type.equals("month")) {
-                currentDate = currentDate.plusDays(1);
-            } else if (type.equals("year")) {
-                currentDate = currentDate.plusMonths(1);
-            } else {
-                currentDate = currentDate.plusYears(1);
-            }
+        ReadingHistogram histogram = new ReadingHistogram(granularity, startDate, endDate);
+        for (ReadingPeriodCount count : counts) {
+            histogram.add(count.getYear(), count.getMonth(), count.getDay(), count.getCount());
         }
 
-        // Добавляем данные о прочитанных книгах
-        finishedBooks.stream()
-            .filter(book -> book.getFinishedDate() != null && 
-                          !book.getFinishedDate().isBefore(startDate) &&
-                          !book.getFinishedDate().isAfter(endDate))
-            .forEach(book -> {
-                String periodKey = book.getFinishedDate()
-                    .format(DateTimeFormatter.ofPattern(dateFormat));
-                periodCount.merge(periodKey, 1L, Long::sum);
-            });
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("readStats", histogram.toChartData());
+        statistics.put("genreStats",
+                getGenreStats(userReadingDailyRepository.countByGenre(user.getId(), startDate, endDate)));
 
-        // Форматируем данные для вывода
-        return periodCount.entrySet().stream()
-            .sorted(Map.Entry.comparingByKey())
-            .map(entry -> {
-                Map<String, Object> periodData = new HashMap<>();
-                LocalDateTime date = LocalDateTime.parse(entry.getKey() + 
-                    (type.equals("month") ? "T00:00:00" : 
-                     type.equals("year") ? "-01T00:00:00" : "-01-01T00:00:00"));
-                periodData.put("label", date.format(DateTimeFormatter.ofPattern(labelFormat)));
-                periodData.put("count", entry.getValue());
-                return periodData;
-            })
-            .collect(Collectors.toList());
+        return statistics;
     }
 
-    private List<Map<String, Object>> getGenreStats(List<UserBook> finishedBooks, String period, String type) {
-        final LocalDateTime now = LocalDateTime.now();
-        final LocalDateTime startDate;
-        final LocalDateTime endDate;
-
-        switch (type) {
-            case "month":
-                final YearMonth yearMonth = YearMonth.parse(period);
-                startDate = yearMonth.atDay(1).atStartOfDay();
-                endDate = yearMonth.atEndOfMonth().atTime(23, 59, 59);
-                break;
-            case "year":
-                final int year = Integer.parseInt(period);
-                startDate = LocalDateTime.of(year, 1, 1, 0, 0);
-                endDate = LocalDateTime.of(year, 12, 31, 23, 59, 59);
-                break;
-            default: // "all"
-                startDate = finishedBooks.stream()
-                    .map(UserBook::getFinishedDate)
-                    .filter(Objects::nonNull)
-                    .min(LocalDateTime::compareTo)
-                    .orElse(now.minusYears(1));
-                endDate = now;
-                break;
-        }
-
-        // Группируем книги по жанрам за выбранный период
-        Map<String, Long> genreCount = finishedBooks.stream()
-            .filter(book -> book.getFinishedDate() != null && 
-                          !book.getFinishedDate().isBefore(startDate) &&
-                          !book.getFinishedDate().isAfter(endDate))
-            .map(book -> book.getBook().getGenre())
-            .filter(Objects::nonNull)
-            .collect(Collectors.groupingBy(
-                genre -> genre,
-                Collectors.counting()
-            ));
-
+    private List<Map<String, Object>> getGenreStats(List<GenreFacet> genres) {
         // Форматируем для вывода
-        return genreCount.entrySet().stream()
-            .map(entry -> {
+        return genres.stream()
+            .map(facet -> {
                 Map<String, Object> genreData = new HashMap<>();
-                genreData.put("genre", entry.getKey());
-                genreData.put("count", entry.getValue());
+                genreData.put("genre", facet.getGenre());
+                genreData.put("count", facet.getCount());
                 return genreData;
             })
             .collect(Collectors.toList());
     }
-} 
\ No newline at end of file
+}
@@ -1,45 +1,93 @@
 package com.example.demo.controllers;
 
-import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
-import com.example.demo.models.BookRecommendation;
+import com.example.demo.models.RecommendationJob;
+import com.example.demo.models.RecommendationRunProgress;
+import com.example.demo.models.RecommendedBook;
 import com.example.demo.models.User;
+import com.example.demo.services.FriendRecommendationService;
+import com.example.demo.services.RecommendationJobService;
+import com.example.demo.services.RecommendationScheduler;
 import com.example.demo.services.RecommendationService;
 import com.example.demo.services.UserService;
+import com.example.demo.services.UserShelfService;
 
 @Controller
 @RequestMapping("/recommendations")
 public class RecommendationController {
     private final RecommendationService recommendationService;
+    private final FriendRecommendationService friendRecommendationService;
+    private final RecommendationScheduler recommendationScheduler;
+    private final RecommendationJobService recommendationJobService;
     private final UserService userService;
+    private final UserShelfService userShelfService;
 
-    public RecommendationController(RecommendationService recommendationService, UserService userService) {
+    public RecommendationController(RecommendationService recommendationService,
+                                    FriendRecommendationService friendRecommendationService,
+                                    RecommendationScheduler recommendationScheduler,
+                                    RecommendationJobService recommendationJobService,
+                                    UserService userService,
+                                    UserShelfService userShelfService) {
         this.recommendationService = recommendationService;
+        this.friendRecommendationService = friendRecommendationService;
+        this.recommendationScheduler = recommendationScheduler;
+        this.recommendationJobService = recommendationJobService;
         this.userService = userService;
+        this.userShelfService = userShelfService;
     }
 
     @GetMapping
-    public String getRecommendations(Model model) {
+    public String getRecommendations(@RequestParam(defaultValue = "0") int page, Model model) {
         User currentUser = userService.getCurrentUser();
-        List<BookRecommendation> recommendations = recommendationService.getRecommendationsForUser(currentUser);
+        Page<RecommendedBook> recommendations =
+                recommendationService.getRecommendationsForUser(currentUser, Math.max(page, 0));
         model.addAttribute("recommendations", recommendations);
+        // Блок «друзья читают» показываем только на первой странице
+        if (recommendations.isFirst()) {
+            model.addAttribute("friendRecommendations", friendRecommendationService.getRecommendations(currentUser));
+        }
+        model.addAttribute("userBooks", userShelfService.getShelf(currentUser));
         return "recommendations/list";
     }
 
+    // Пересчёт выполняется в фоне, клиент опрашивает статус по id задачи
     @PostMapping("/generate")
     @ResponseBody
-    public String generateRecommendations() {
+    public ResponseEntity<RecommendationJob> generateRecommendations() {
         User currentUser = userService.getCurrentUser();
-        recommendationService.generateRecommendations(currentUser);
-        return "Рекомендации успешно обновлены";
+        try {
+            return ResponseEntity.accepted().body(recommendationJobService.submit(currentUser.getId()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/jobs/{id}")
+    @ResponseBody
+    public ResponseEntity<RecommendationJob> getJob(@PathVariable String id) {
+        User currentUser = userService.getCurrentUser();
+        RecommendationJob job = recommendationJobService.getJob(id, currentUser.getId());
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    // Ход текущего или последнего ночного пересчёта
+    @GetMapping("/runs/current")
+    @ResponseBody
+    public ResponseEntity<RecommendationRunProgress> getCurrentRun() {
+        return ResponseEntity.of(recommendationScheduler.getProgress());
     }
 
     @PostMapping("/{id}/mark-read")
@@ -0,0 +1,45 @@
+package com.example.demo.events;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.example.demo.models.Book;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA listener сущности {@link Book}. Создаётся через Spring bean container Hibernate,
+ * поэтому может получать зависимости через конструктор.
+ */
+public class BookChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public BookChangeListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostLoad
+    public void onLoad(Book book) {
+        book.setLoadedGenre(book.getGenre());
+    }
+
+    @PostPersist
+    public void onPersist(Book book) {
+        publisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.CREATED, book, null));
+        book.setLoadedGenre(book.getGenre());
+    }
+
+    @PostUpdate
+    public void onUpdate(Book book) {
+        publisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.UPDATED, book, book.getLoadedGenre()));
+        book.setLoadedGenre(book.getGenre());
+    }
+
+    @PostRemove
+    public void onRemove(Book book) {
+        publisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.DELETED, book, book.getLoadedGenre()));
+    }
+}
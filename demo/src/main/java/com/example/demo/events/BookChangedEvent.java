@@ -0,0 +1,39 @@
+package com.example.demo.events;
+
+import com.example.demo.models.Book;
+
+/**
+ * Событие об изменении строки в таблице book. Публикуется {@link BookChangeListener}
+ * и используется in-memory индексами каталога для инкрементального обновления.
+ */
+public class BookChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Book book;
+    private final String previousGenre;
+
+    public BookChangedEvent(Type type, Book book, String previousGenre) {
+        this.type = type;
+        this.book = book;
+        this.previousGenre = previousGenre;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    // Жанр книги до изменения (null для новых книг)
+    public String getPreviousGenre() {
+        return previousGenre;
+    }
+}
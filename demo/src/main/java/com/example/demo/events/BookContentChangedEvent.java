@@ -0,0 +1,17 @@
+package com.example.demo.events;
+
+/**
+ * Событие об изменении содержимого страницы книги: отзывов или цитат.
+ * Публикуется {@link BookContentListener}.
+ */
+public class BookContentChangedEvent {
+    private final Long bookId;
+
+    public BookContentChangedEvent(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+}
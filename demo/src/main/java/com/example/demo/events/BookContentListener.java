@@ -0,0 +1,39 @@
+package com.example.demo.events;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.example.demo.models.Book;
+import com.example.demo.models.Quote;
+import com.example.demo.models.Review;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA listener отзывов и цитат: сообщает об изменении содержимого страницы книги.
+ */
+public class BookContentListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public BookContentListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Book book = null;
+        if (entity instanceof Review review) {
+            book = review.getBook();
+        } else if (entity instanceof Quote quote) {
+            book = quote.getBook();
+        }
+        // getId() у ленивого прокси не требует загрузки книги
+        if (book != null && book.getId() != null) {
+            publisher.publishEvent(new BookContentChangedEvent(book.getId()));
+        }
+    }
+}
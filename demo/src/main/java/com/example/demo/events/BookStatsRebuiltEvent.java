@@ -0,0 +1,19 @@
+package com.example.demo.events;
+
+import java.util.List;
+
+/**
+ * Событие о книгах, счётчики которых исправил ночной пересчёт book_stats.
+ * Публикуется BookStatsService после коммита исправлений.
+ */
+public class BookStatsRebuiltEvent {
+    private final List<Long> bookIds;
+
+    public BookStatsRebuiltEvent(List<Long> bookIds) {
+        this.bookIds = bookIds;
+    }
+
+    public List<Long> getBookIds() {
+        return bookIds;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.events;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.example.demo.models.Friendship;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA listener дружбы: сообщает об изменении списка друзей обоих пользователей.
+ */
+public class FriendshipChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public FriendshipChangeListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Friendship friendship) {
+        if (friendship.getRequester() != null && friendship.getReceiver() != null) {
+            publisher.publishEvent(new FriendshipChangedEvent(
+                    friendship.getRequester().getId(), friendship.getReceiver().getId()));
+        }
+    }
+}
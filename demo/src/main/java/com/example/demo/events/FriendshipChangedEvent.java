@@ -0,0 +1,23 @@
+package com.example.demo.events;
+
+/**
+ * Событие об изменении дружбы двух пользователей (запрос, принятие, отказ, удаление).
+ * Публикуется FriendshipChangeListener внутри транзакции изменения.
+ */
+public class FriendshipChangedEvent {
+    private final Long requesterId;
+    private final Long receiverId;
+
+    public FriendshipChangedEvent(Long requesterId, Long receiverId) {
+        this.requesterId = requesterId;
+        this.receiverId = receiverId;
+    }
+
+    public Long getRequesterId() {
+        return requesterId;
+    }
+
+    public Long getReceiverId() {
+        return receiverId;
+    }
+}
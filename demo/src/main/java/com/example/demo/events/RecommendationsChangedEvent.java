@@ -0,0 +1,17 @@
+package com.example.demo.events;
+
+/**
+ * Событие об изменении сохранённых рекомендаций пользователя (пересчёт или отметка
+ * о прочтении). Публикуется RecommendationService внутри транзакции изменения.
+ */
+public class RecommendationsChangedEvent {
+    private final Long userId;
+
+    public RecommendationsChangedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
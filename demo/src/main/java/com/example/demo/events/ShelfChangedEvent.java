@@ -0,0 +1,23 @@
+package com.example.demo.events;
+
+/**
+ * Событие об изменении полки пользователя (добавление, смена статуса, оценка,
+ * удаление или избранное). Публикуется BookShelfService внутри транзакции изменения.
+ */
+public class ShelfChangedEvent {
+    private final Long userId;
+    private final Long bookId;
+
+    public ShelfChangedEvent(Long userId, Long bookId) {
+        this.userId = userId;
+        this.bookId = bookId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.events;
+
+/**
+ * Событие об изменении профиля пользователя (имя, аватар), показанного рядом с его
+ * отзывами и цитатами. Публикуется {@link UserProfileListener}.
+ */
+public class UserProfileChangedEvent {
+    private final Long userId;
+
+    public UserProfileChangedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.events;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.example.demo.models.User;
+
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA listener пользователя: сообщает об изменении профиля.
+ */
+public class UserProfileListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public UserProfileListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostUpdate
+    public void onUpdate(User user) {
+        publisher.publishEvent(new UserProfileChangedEvent(user.getId()));
+    }
+}
@@ -3,16 +3,24 @@ package com.example.demo.models;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.example.demo.events.BookChangeListener;
+
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity
-@Table(name = "book")
+@Table(name = "book", indexes = {
+    // Для keyset-пагинации каталога с фильтром по жанру
+    @Index(name = "idx_book_genre_id", columnList = "genre, id")
+})
+@EntityListeners(BookChangeListener.class)
 @Data
 public class Book {
     @Id
@@ -30,6 +38,9 @@ public class Book {
     @OneToMany(mappedBy = "book")
     private List<UserBook> userBooks = new ArrayList<>();
 
+    // Жанр на момент загрузки из БД, нужен для инкрементального обновления индексов
+    private transient String loadedGenre;
+
     @Override
     public String toString() {
         return "Book{" +
@@ -96,6 +107,14 @@ public class Book {
 //        this.isbn = isbn;
 //    }
 
+    public String getLoadedGenre() {
+        return loadedGenre;
+    }
+
+    public void setLoadedGenre(String loadedGenre) {
+        this.loadedGenre = loadedGenre;
+    }
+
     public Integer getPublicationYear() {
         return publicationYear;
     }
@@ -0,0 +1,22 @@
+package com.example.demo.models;
+
+/**
+ * id книги и её жанр - всё, что нужно для подбора кандидатов в рекомендации.
+ */
+public class BookGenre {
+    private final long bookId;
+    private final String genre;
+
+    public BookGenre(Long bookId, String genre) {
+        this.bookId = bookId;
+        this.genre = genre;
+    }
+
+    public long getBookId() {
+        return bookId;
+    }
+
+    public String getGenre() {
+        return genre;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.models;
+
+/**
+ * Количество и сумма оценок книги из book_stats.
+ */
+public class BookRating {
+    private final long bookId;
+    private final long ratingCount;
+    private final long ratingSum;
+
+    public BookRating(Long bookId, long ratingCount, long ratingSum) {
+        this.bookId = bookId;
+        this.ratingCount = ratingCount;
+        this.ratingSum = ratingSum;
+    }
+
+    public long getBookId() {
+        return bookId;
+    }
+
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+}
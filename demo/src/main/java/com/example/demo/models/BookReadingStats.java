@@ -0,0 +1,53 @@
+package com.example.demo.models;
+
+/**
+ * Сводная статистика книги: количество читателей по статусам и средняя оценка.
+ * Заполняется одним агрегирующим запросом к user_book.
+ */
+public class BookReadingStats {
+    private final long readingCount;
+    private final long finishedCount;
+    private final long plannedCount;
+    private final long droppedCount;
+    private final long totalRatings;
+    private final double averageRating;
+
+    public BookReadingStats(Long readingCount, Long finishedCount, Long plannedCount,
+                            Long droppedCount, Long totalRatings, Double averageRating) {
+        this.readingCount = readingCount != null ? readingCount : 0L;
+        this.finishedCount = finishedCount != null ? finishedCount : 0L;
+        this.plannedCount = plannedCount != null ? plannedCount : 0L;
+        this.droppedCount = droppedCount != null ? droppedCount : 0L;
+        this.totalRatings = totalRatings != null ? totalRatings : 0L;
+        // Округляем до одного знака после запятой
+        this.averageRating = averageRating != null ? Math.round(averageRating * 10.0) / 10.0 : 0.0;
+    }
+
+    public static BookReadingStats empty() {
+        return new BookReadingStats(0L, 0L, 0L, 0L, 0L, null);
+    }
+
+    public long getReadingCount() {
+        return readingCount;
+    }
+
+    public long getFinishedCount() {
+        return finishedCount;
+    }
+
+    public long getPlannedCount() {
+        return plannedCount;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public long getTotalRatings() {
+        return totalRatings;
+    }
+
+    public double getAverageRating() {
+        return averageRating;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Счётчики по книге, которые поддерживаются инкрементально при изменении полки
+ * пользователя (см. BookStatsService). Одна строка на книгу.
+ */
+@Entity
+@Table(name = "book_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookStats {
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    private long readingCount;
+    private long finishedCount;
+    private long plannedCount;
+    private long droppedCount;
+    private long ratingCount;
+    private long ratingSum;
+
+    public BookReadingStats toReadingStats() {
+        Double average = ratingCount > 0 ? (double) ratingSum / ratingCount : null;
+        return new BookReadingStats(readingCount, finishedCount, plannedCount, droppedCount, ratingCount, average);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.models;
+
+/**
+ * Книга, которую дочитали и высоко оценили друзья пользователя:
+ * сколько друзей её прочитали и их средняя оценка.
+ */
+public class FriendReading {
+    private final long bookId;
+    private final long friendCount;
+    private final Double averageRating;
+
+    public FriendReading(Long bookId, long friendCount, Double averageRating) {
+        this.bookId = bookId;
+        this.friendCount = friendCount;
+        this.averageRating = averageRating != null ? Math.round(averageRating * 10) / 10.0 : null;
+    }
+
+    public long getBookId() {
+        return bookId;
+    }
+
+    public long getFriendCount() {
+        return friendCount;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+}
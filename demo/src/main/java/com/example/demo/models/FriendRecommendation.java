@@ -0,0 +1,28 @@
+package com.example.demo.models;
+
+/**
+ * Рекомендация «друзья читают»: книга и данные о том, как её прочитали друзья.
+ */
+public class FriendRecommendation {
+    private final Book book;
+    private final long friendCount;
+    private final Double averageRating;
+
+    public FriendRecommendation(Book book, FriendReading reading) {
+        this.book = book;
+        this.friendCount = reading.getFriendCount();
+        this.averageRating = reading.getAverageRating();
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public long getFriendCount() {
+        return friendCount;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+}
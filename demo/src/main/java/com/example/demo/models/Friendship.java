@@ -1,5 +1,7 @@
 package com.example.demo.models;
 
+import com.example.demo.events.FriendshipChangeListener;
+
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -7,6 +9,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "friendships")
+@EntityListeners(FriendshipChangeListener.class)
 @Data
 public class Friendship {
     @Id
@@ -0,0 +1,19 @@
+package com.example.demo.models;
+
+public class GenreFacet {
+    private final String genre;
+    private final long count;
+
+    public GenreFacet(String genre, long count) {
+        this.genre = genre;
+        this.count = count;
+    }
+
+    public String getGenre() {
+        return genre;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
@@ -2,8 +2,11 @@ package com.example.demo.models;
 
 import java.time.LocalDateTime;
 
+import com.example.demo.events.BookContentListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -14,6 +17,7 @@ import lombok.Data;
 
 @Entity
 @Table(name = "quotes")
+@EntityListeners(BookContentListener.class)
 @Data
 public class Quote {
     @Id
@@ -0,0 +1,40 @@
+package com.example.demo.models;
+
+/**
+ * Запись UserBook без загрузки сущностей: кто, какую книгу, в каком статусе и с какой оценкой.
+ */
+public class ReadingInteraction {
+    private final long id;
+    private final long userId;
+    private final long bookId;
+    private final ReadingStatus status;
+    private final Integer rating;
+
+    public ReadingInteraction(Long id, Long userId, Long bookId, ReadingStatus status, Integer rating) {
+        this.id = id;
+        this.userId = userId;
+        this.bookId = bookId;
+        this.status = status;
+        this.rating = rating;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public long getBookId() {
+        return bookId;
+    }
+
+    public ReadingStatus getStatus() {
+        return status;
+    }
+
+    public Integer getRating() {
+        return rating;
+    }
+}
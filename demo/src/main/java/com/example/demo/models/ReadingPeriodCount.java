@@ -0,0 +1,50 @@
+package com.example.demo.models;
+
+import java.time.LocalDate;
+
+/**
+ * Число прочитанных книг за год, месяц или день. Для более крупных периодов
+ * неиспользуемые части даты равны 1.
+ */
+public class ReadingPeriodCount {
+    private final int year;
+    private final int month;
+    private final int day;
+    private final long count;
+
+    public ReadingPeriodCount(int year, long count) {
+        this(year, 1, 1, count);
+    }
+
+    public ReadingPeriodCount(int year, int month, long count) {
+        this(year, month, 1, count);
+    }
+
+    public ReadingPeriodCount(int year, int month, int day, long count) {
+        this.year = year;
+        this.month = month;
+        this.day = day;
+        this.count = count;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // Первый день периода
+    public LocalDate getStart() {
+        return LocalDate.of(year, month, day);
+    }
+}
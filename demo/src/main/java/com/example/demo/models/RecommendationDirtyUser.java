@@ -0,0 +1,26 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Пользователь, рекомендации которого устарели: изменилась его полка
+ * или заметно сдвинулись средние оценки книг в его жанрах.
+ * Строка удаляется после пересчёта рекомендаций (см. RecommendationChangeTracker).
+ */
+@Entity
+@Table(name = "recommendation_dirty_user")
+@Data
+public class RecommendationDirtyUser {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime markedAt;
+}
@@ -0,0 +1,58 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Пересчёт рекомендаций одного пользователя по запросу. Хранится только в памяти:
+ * статус меняет поток пула, читает - запрос опроса статуса.
+ */
+public class RecommendationJob {
+    private final String id;
+    private final Long userId;
+    private final LocalDateTime createdAt;
+    private volatile RecommendationJobStatus status = RecommendationJobStatus.QUEUED;
+    private volatile LocalDateTime finishedAt;
+
+    public RecommendationJob(String id, Long userId, LocalDateTime createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.createdAt = createdAt;
+    }
+
+    public void start() {
+        status = RecommendationJobStatus.RUNNING;
+    }
+
+    public void finish(RecommendationJobStatus status, LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+        this.status = status;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @JsonIgnore
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public RecommendationJobStatus getStatus() {
+        return status;
+    }
+
+    // null, пока задача не завершена
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        return status == RecommendationJobStatus.COMPLETED || status == RecommendationJobStatus.FAILED;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Оценки книги из book_stats на момент последнего пересчёта рекомендаций.
+ * Нужны, чтобы найти книги, средняя оценка которых с тех пор заметно изменилась.
+ */
+@Entity
+@Table(name = "recommendation_rating_snapshot")
+@Data
+public class RecommendationRatingSnapshot {
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    private long ratingCount;
+    private long ratingSum;
+}
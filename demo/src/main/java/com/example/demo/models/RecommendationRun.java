@@ -0,0 +1,50 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Состояние ночного пересчёта рекомендаций. lastUserId - контрольная точка: все пользователи
+ * с id не больше неё обработаны, поэтому прерванный запуск продолжается с неё.
+ */
+@Entity
+@Table(name = "recommendation_run")
+@Data
+public class RecommendationRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RecommendationRunStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    // Отметки журнала изменений не позже этого момента снимаются после обработки
+    @Column(nullable = false)
+    private LocalDateTime since;
+
+    private Long lastUserId;
+    private long totalUsers;
+    private long processedUsers;
+    private long failedUsers;
+    // Суммарное время обработки пользователей и полная длительность запуска
+    private long userMillis;
+    private long durationMillis;
+
+    @Column(length = 1000)
+    private String lastError;
+}
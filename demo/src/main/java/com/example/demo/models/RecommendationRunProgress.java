@@ -0,0 +1,82 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ход пересчёта рекомендаций для мониторинга: счётчики запуска и оценки скорости.
+ * Текст последней ошибки сюда не попадает, он есть в recommendation_run и в логе.
+ */
+public class RecommendationRunProgress {
+    private final Long runId;
+    private final RecommendationRunStatus status;
+    private final LocalDateTime startedAt;
+    private final LocalDateTime finishedAt;
+    private final Long lastUserId;
+    private final long totalUsers;
+    private final long processedUsers;
+    private final long failedUsers;
+    private final double usersPerSecond;
+    private final Long etaSeconds;
+    private final long p95UserMillis;
+
+    public RecommendationRunProgress(RecommendationRun run, long processedUsers, long failedUsers,
+                                     Long lastUserId, double usersPerSecond, Long etaSeconds,
+                                     long p95UserMillis) {
+        this.runId = run.getId();
+        this.status = run.getStatus();
+        this.startedAt = run.getStartedAt();
+        this.finishedAt = run.getFinishedAt();
+        this.totalUsers = run.getTotalUsers();
+        this.lastUserId = lastUserId;
+        this.processedUsers = processedUsers;
+        this.failedUsers = failedUsers;
+        this.usersPerSecond = usersPerSecond;
+        this.etaSeconds = etaSeconds;
+        this.p95UserMillis = p95UserMillis;
+    }
+
+    public Long getRunId() {
+        return runId;
+    }
+
+    public RecommendationRunStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Long getLastUserId() {
+        return lastUserId;
+    }
+
+    public long getTotalUsers() {
+        return totalUsers;
+    }
+
+    public long getProcessedUsers() {
+        return processedUsers;
+    }
+
+    public long getFailedUsers() {
+        return failedUsers;
+    }
+
+    public double getUsersPerSecond() {
+        return usersPerSecond;
+    }
+
+    // null, если скорость ещё неизвестна
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public long getP95UserMillis() {
+        return p95UserMillis;
+    }
+}
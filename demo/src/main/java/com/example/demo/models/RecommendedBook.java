@@ -0,0 +1,54 @@
+package com.example.demo.models;
+
+/**
+ * Рекомендация для страницы рекомендаций: score и данные книги для карточки, без сущностей,
+ * поэтому страницу можно держать в кэше вне транзакции.
+ */
+public class RecommendedBook {
+    private final long id;
+    private final long bookId;
+    private final double score;
+    private final String title;
+    private final String author;
+    private final String genre;
+    private final String coverUrl;
+
+    public RecommendedBook(Long id, Long bookId, Double score, String title, String author, String genre,
+                           String coverUrl) {
+        this.id = id;
+        this.bookId = bookId;
+        this.score = score != null ? score : 0;
+        this.title = title;
+        this.author = author;
+        this.genre = genre;
+        this.coverUrl = coverUrl;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getBookId() {
+        return bookId;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getGenre() {
+        return genre;
+    }
+
+    public String getCoverUrl() {
+        return coverUrl;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.models;
+
+import java.util.List;
+
+/**
+ * Корневой отзыв вместе с ответами на него, собранный в памяти
+ * без обращения к ленивой коллекции Review.replies.
+ */
+public class ReviewThread {
+    private final Review root;
+    private final List<Review> replies;
+
+    public ReviewThread(Review root, List<Review> replies) {
+        this.root = root;
+        this.replies = replies;
+    }
+
+    public Review getRoot() {
+        return root;
+    }
+
+    public List<Review> getReplies() {
+        return replies;
+    }
+
+    public int getReplyCount() {
+        return replies.size();
+    }
+}
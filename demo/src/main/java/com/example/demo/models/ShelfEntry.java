@@ -0,0 +1,34 @@
+package com.example.demo.models;
+
+/**
+ * Облегчённое представление записи UserBook без загрузки сущностей.
+ */
+public class ShelfEntry {
+    private final long bookId;
+    private final ReadingStatus status;
+    private final Integer rating;
+    private final boolean favorite;
+
+    public ShelfEntry(Long bookId, ReadingStatus status, Integer rating, Boolean favorite) {
+        this.bookId = bookId;
+        this.status = status;
+        this.rating = rating;
+        this.favorite = favorite != null && favorite;
+    }
+
+    public long getBookId() {
+        return bookId;
+    }
+
+    public ReadingStatus getStatus() {
+        return status;
+    }
+
+    public Integer getRating() {
+        return rating;
+    }
+
+    public boolean isFavorite() {
+        return favorite;
+    }
+}
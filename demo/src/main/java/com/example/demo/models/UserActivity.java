@@ -9,6 +9,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 
@@ -17,7 +18,8 @@ import lombok.Data;
 @Data
 public class UserActivity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_activity_seq")
+    @SequenceGenerator(name = "user_activity_seq", sequenceName = "user_activity_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -10,15 +10,23 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity
+@Table(name = "user_book", indexes = {
+    // Для сверки user_reading_daily: прочитанные книги пользователей по дате
+    @Index(name = "idx_user_book_user_status_finished", columnList = "user_id, status, finished_date")
+})
 @Data
 public class UserBook {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_book_seq")
+    @SequenceGenerator(name = "user_book_seq", sequenceName = "user_book_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
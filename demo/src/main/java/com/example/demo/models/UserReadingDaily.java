@@ -0,0 +1,48 @@
+package com.example.demo.models;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Число книг, прочитанных пользователем за день, по жанрам. Поддерживается инкрементально
+ * при изменении полки (см. UserReadingDailyService). Книги без жанра учитываются с genre = ''.
+ */
+@Entity
+@Table(name = "user_reading_daily")
+@IdClass(UserReadingDaily.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserReadingDaily {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "reading_day")
+    private LocalDate day;
+
+    @Id
+    private String genre;
+
+    @Column(name = "finished_count", nullable = false)
+    private long count;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate day;
+        private String genre;
+    }
+}
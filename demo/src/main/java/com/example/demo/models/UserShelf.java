@@ -0,0 +1,75 @@
+package com.example.demo.models;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Неизменяемый компактный снимок полки пользователя: отсортированный массив id книг
+ * и параллельные массивы статусов, оценок и признака избранного.
+ * Поиск по id книги - бинарный, без упаковки ключей.
+ */
+public class UserShelf {
+    private static final ReadingStatus[] STATUSES = ReadingStatus.values();
+    private static final byte NO_STATUS = -1;
+    private static final byte NO_RATING = 0;
+
+    private final long[] bookIds;
+    private final byte[] statuses;
+    private final byte[] ratings;
+    private final boolean[] favorites;
+
+    // entries должны быть отсортированы по bookId; для повторяющихся книг берётся первая запись
+    public UserShelf(List<ShelfEntry> entries) {
+        long[] ids = new long[entries.size()];
+        byte[] st = new byte[entries.size()];
+        byte[] rt = new byte[entries.size()];
+        boolean[] fav = new boolean[entries.size()];
+        int size = 0;
+        for (ShelfEntry entry : entries) {
+            if (size > 0 && ids[size - 1] == entry.getBookId()) {
+                continue;
+            }
+            ids[size] = entry.getBookId();
+            st[size] = entry.getStatus() != null ? (byte) entry.getStatus().ordinal() : NO_STATUS;
+            rt[size] = entry.getRating() != null ? entry.getRating().byteValue() : NO_RATING;
+            fav[size] = entry.isFavorite();
+            size++;
+        }
+        this.bookIds = Arrays.copyOf(ids, size);
+        this.statuses = Arrays.copyOf(st, size);
+        this.ratings = Arrays.copyOf(rt, size);
+        this.favorites = Arrays.copyOf(fav, size);
+    }
+
+    public int size() {
+        return bookIds.length;
+    }
+
+    public boolean containsKey(Long bookId) {
+        return bookId != null && Arrays.binarySearch(bookIds, bookId) >= 0;
+    }
+
+    public boolean contains(long bookId) {
+        return Arrays.binarySearch(bookIds, bookId) >= 0;
+    }
+
+    // Возвращает null, если книги нет на полке
+    public ShelfEntry get(Long bookId) {
+        if (bookId == null) {
+            return null;
+        }
+        int index = Arrays.binarySearch(bookIds, bookId);
+        if (index < 0) {
+            return null;
+        }
+        return new ShelfEntry(bookIds[index],
+                statuses[index] != NO_STATUS ? STATUSES[statuses[index]] : null,
+                ratings[index] != NO_RATING ? (int) ratings[index] : null,
+                favorites[index]);
+    }
+
+    // Отсортированные id книг на полке (копия)
+    public long[] bookIds() {
+        return bookIds.clone();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.recommendation;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.example.demo.models.BookRating;
+
+/**
+ * Неизменяемая таблица средних оценок книг: отсортированный массив id
+ * и параллельный массив средних, поиск бинарный.
+ */
+public final class BookRatings {
+
+    private final long[] bookIds;
+    private final double[] averages;
+
+    public BookRatings(List<BookRating> ratings) {
+        long[] ids = new long[ratings.size()];
+        double[] values = new double[ratings.size()];
+        int size = 0;
+        for (BookRating rating : ratings) {
+            if (rating.getRatingCount() > 0) {
+                ids[size] = rating.getBookId();
+                values[size] = (double) rating.getRatingSum() / rating.getRatingCount();
+                size++;
+            }
+        }
+        // Запрос возвращает строки по возрастанию id, сортировка нужна только на всякий случай
+        if (!isSorted(ids, size)) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            long[] unsortedIds = ids;
+            Arrays.sort(order, (a, b) -> Long.compare(unsortedIds[a], unsortedIds[b]));
+            long[] sortedIds = new long[size];
+            double[] sortedValues = new double[size];
+            for (int i = 0; i < size; i++) {
+                sortedIds[i] = ids[order[i]];
+                sortedValues[i] = values[order[i]];
+            }
+            ids = sortedIds;
+            values = sortedValues;
+        }
+        this.bookIds = Arrays.copyOf(ids, size);
+        this.averages = Arrays.copyOf(values, size);
+    }
+
+    public int size() {
+        return bookIds.length;
+    }
+
+    public double average(long bookId, double defaultValue) {
+        int index = Arrays.binarySearch(bookIds, bookId);
+        return index >= 0 ? averages[index] : defaultValue;
+    }
+
+    private static boolean isSorted(long[] ids, int size) {
+        for (int i = 1; i < size; i++) {
+            if (ids[i - 1] > ids[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Неизменяемый результат {@link ItemSimilarityBuilder}: для каждой книги до K самых похожих
+ * книг с косинусной мерой сходства, по убыванию сходства. Хранится в формате CSR:
+ * отсортированные id книг, смещения строк, индексы соседей и их сходство.
+ * Память: 12 байт на книгу + 8 байт на соседа, т. е. не больше n * (12 + 8K) байт.
+ */
+public final class ItemNeighbours {
+
+    public interface Consumer {
+        void accept(long bookId, float similarity);
+    }
+
+    private final long[] bookIds;
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final float[] similarities;
+
+    ItemNeighbours(long[] bookIds, int[] offsets, int[] neighbours, float[] similarities) {
+        this.bookIds = bookIds;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.similarities = similarities;
+    }
+
+    public int bookCount() {
+        return bookIds.length;
+    }
+
+    public int neighbourCount() {
+        return offsets[bookIds.length];
+    }
+
+    public long estimatedBytes() {
+        return bookIds.length * 12L + neighbourCount() * 8L;
+    }
+
+    public void forEachNeighbour(long bookId, Consumer consumer) {
+        int index = indexOf(bookId);
+        if (index < 0) {
+            return;
+        }
+        for (int p = offsets[index]; p < offsets[index + 1]; p++) {
+            consumer.accept(bookIds[neighbours[p]], similarities[p]);
+        }
+    }
+
+    private int indexOf(long bookId) {
+        int index = Arrays.binarySearch(bookIds, bookId);
+        return index >= 0 ? index : -1;
+    }
+}
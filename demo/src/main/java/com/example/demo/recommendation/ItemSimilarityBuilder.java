@@ -0,0 +1,224 @@
+package com.example.demo.recommendation;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Построение матрицы сходства книг (item-item) по полкам пользователей.
+ * Взаимодействие пользователя с книгой имеет вес (см. ItemSimilarityService), сходство двух
+ * книг - косинус между их векторами весов по пользователям. Для каждой книги сохраняется
+ * только K ближайших соседей, поэтому полная матрица n × n никогда не создаётся.
+ *
+ * Память при построении: 20 байт на взаимодействие при загрузке, ещё ~16 байт на
+ * взаимодействие для двух CSR-представлений (пользователь → книги, книга → пользователи),
+ * n * K * 8 байт на промежуточные строки соседей и по 8 байт × n на поток для аккумулятора.
+ * Строки книг считаются параллельно на ForkJoinPool из parallelism потоков.
+ */
+public final class ItemSimilarityBuilder {
+
+    // Полки огромного размера дают квадратичное число пар и почти не несут сигнала
+    private static final int MAX_ITEMS_PER_USER = 1000;
+
+    private long[] userIds = new long[1024];
+    private long[] bookIds = new long[1024];
+    private float[] weights = new float[1024];
+    private int size;
+
+    public void add(long userId, long bookId, float weight) {
+        if (size == userIds.length) {
+            int capacity = size * 2;
+            userIds = Arrays.copyOf(userIds, capacity);
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        userIds[size] = userId;
+        bookIds[size] = bookId;
+        weights[size] = weight;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ItemNeighbours build(int k, int parallelism) {
+        long[] items = distinctSorted(bookIds, size);
+        long[] users = distinctSorted(userIds, size);
+        int itemCount = items.length;
+        int userCount = users.length;
+
+        // Пользователь → книги: упаковываем (книга, вес) в long, чтобы отсортировать строку
+        // и схлопнуть повторяющиеся записи одной книги, оставив максимальный вес
+        int[] userStart = new int[userCount + 1];
+        int[] userOf = new int[size];
+        for (int n = 0; n < size; n++) {
+            userOf[n] = Arrays.binarySearch(users, userIds[n]);
+            userStart[userOf[n] + 1]++;
+        }
+        for (int u = 0; u < userCount; u++) {
+            userStart[u + 1] += userStart[u];
+        }
+        long[] packed = new long[size];
+        int[] fill = Arrays.copyOf(userStart, userCount);
+        for (int n = 0; n < size; n++) {
+            int item = Arrays.binarySearch(items, bookIds[n]);
+            packed[fill[userOf[n]]++] = ((long) item << 32) | (Float.floatToIntBits(weights[n]) & 0xFFFFFFFFL);
+        }
+
+        int[] userItemStart = new int[userCount + 1];
+        int[] userItems = new int[size];
+        float[] userWeights = new float[size];
+        int position = 0;
+        for (int u = 0; u < userCount; u++) {
+            userItemStart[u] = position;
+            Arrays.sort(packed, userStart[u], userStart[u + 1]);
+            for (int p = userStart[u]; p < userStart[u + 1]; p++) {
+                int item = (int) (packed[p] >>> 32);
+                float weight = Float.intBitsToFloat((int) packed[p]);
+                if (position > userItemStart[u] && userItems[position - 1] == item) {
+                    userWeights[position - 1] = Math.max(userWeights[position - 1], weight);
+                } else {
+                    userItems[position] = item;
+                    userWeights[position] = weight;
+                    position++;
+                }
+            }
+        }
+        userItemStart[userCount] = position;
+        packed = null;
+        userOf = null;
+
+        // Книга → пользователи (транспонирование), без слишком больших полок
+        int[] itemUserStart = new int[itemCount + 1];
+        for (int u = 0; u < userCount; u++) {
+            if (userItemStart[u + 1] - userItemStart[u] <= MAX_ITEMS_PER_USER) {
+                for (int p = userItemStart[u]; p < userItemStart[u + 1]; p++) {
+                    itemUserStart[userItems[p] + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < itemCount; i++) {
+            itemUserStart[i + 1] += itemUserStart[i];
+        }
+        int[] itemUsers = new int[itemUserStart[itemCount]];
+        float[] itemWeights = new float[itemUserStart[itemCount]];
+        int[] itemFill = Arrays.copyOf(itemUserStart, itemCount);
+        double[] squaredNorms = new double[itemCount];
+        for (int u = 0; u < userCount; u++) {
+            if (userItemStart[u + 1] - userItemStart[u] <= MAX_ITEMS_PER_USER) {
+                for (int p = userItemStart[u]; p < userItemStart[u + 1]; p++) {
+                    int item = userItems[p];
+                    itemUsers[itemFill[item]] = u;
+                    itemWeights[itemFill[item]++] = userWeights[p];
+                    squaredNorms[item] += (double) userWeights[p] * userWeights[p];
+                }
+            }
+        }
+        float[] norms = new float[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            norms[i] = (float) Math.sqrt(squaredNorms[i]);
+        }
+
+        int[] rowSize = new int[itemCount];
+        int[] rowNeighbours = new int[itemCount * k];
+        float[] rowSimilarities = new float[itemCount * k];
+        ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(() -> new Workspace(itemCount, k));
+
+        Runnable task = () -> IntStream.range(0, itemCount).parallel().forEach(i ->
+                workspaces.get().computeRow(i, itemUserStart, itemUsers, itemWeights,
+                        userItemStart, userItems, userWeights, norms,
+                        rowSize, rowNeighbours, rowSimilarities));
+        ForkJoinPool pool = new ForkJoinPool(Math.max(parallelism, 1));
+        try {
+            pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Item similarity build interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Item similarity build failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        // Сжимаем строки фиксированной длины K в CSR
+        int[] offsets = new int[itemCount + 1];
+        for (int i = 0; i < itemCount; i++) {
+            offsets[i + 1] = offsets[i] + rowSize[i];
+        }
+        int[] neighbours = new int[offsets[itemCount]];
+        float[] similarities = new float[offsets[itemCount]];
+        for (int i = 0; i < itemCount; i++) {
+            System.arraycopy(rowNeighbours, i * k, neighbours, offsets[i], rowSize[i]);
+            System.arraycopy(rowSimilarities, i * k, similarities, offsets[i], rowSize[i]);
+        }
+        return new ItemNeighbours(items, offsets, neighbours, similarities);
+    }
+
+    // Рабочие массивы одного потока: аккумулятор скалярных произведений и список затронутых книг
+    private static final class Workspace {
+        final float[] dots;
+        final int[] touched;
+        final TopK top;
+        final long[] topIds;
+        final double[] topScores;
+
+        Workspace(int itemCount, int k) {
+            dots = new float[itemCount];
+            touched = new int[itemCount];
+            top = new TopK(k);
+            topIds = new long[k];
+            topScores = new double[k];
+        }
+
+        void computeRow(int item, int[] itemUserStart, int[] itemUsers, float[] itemWeights,
+                        int[] userItemStart, int[] userItems, float[] userWeights, float[] norms,
+                        int[] rowSize, int[] rowNeighbours, float[] rowSimilarities) {
+            int touchedCount = 0;
+            for (int p = itemUserStart[item]; p < itemUserStart[item + 1]; p++) {
+                int user = itemUsers[p];
+                float weight = itemWeights[p];
+                for (int q = userItemStart[user]; q < userItemStart[user + 1]; q++) {
+                    int other = userItems[q];
+                    if (other == item) {
+                        continue;
+                    }
+                    if (dots[other] == 0f) {
+                        touched[touchedCount++] = other;
+                    }
+                    dots[other] += weight * userWeights[q];
+                }
+            }
+
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                float denominator = norms[item] * norms[other];
+                if (denominator > 0f) {
+                    top.offer(other, dots[other] / denominator);
+                }
+                dots[other] = 0f;
+            }
+
+            int k = topIds.length;
+            int count = top.drainDescending(topIds, topScores);
+            rowSize[item] = count;
+            for (int n = 0; n < count; n++) {
+                rowNeighbours[item * k + n] = (int) topIds[n];
+                rowSimilarities[item * k + n] = (float) topScores[n];
+            }
+        }
+    }
+
+    private static long[] distinctSorted(long[] values, int length) {
+        long[] sorted = Arrays.copyOf(values, length);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < length; i++) {
+            if (unique == 0 || sorted[unique - 1] != sorted[i]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.recommendation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Потокобезопасная гистограмма длительностей с логарифмическими корзинами
+ * (четыре корзины на каждое удвоение, погрешность перцентиля - до ~19%).
+ * Память постоянна и не зависит от числа замеров.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS_PER_DOUBLING = 4;
+    private static final int BUCKETS = 40 * BUCKETS_PER_DOUBLING;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long millis) {
+        counts.incrementAndGet(bucket(millis));
+    }
+
+    // Верхняя граница корзины, в которую попадает перцентиль p (0..1); 0, если замеров нет
+    public long percentile(double p) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * p);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private static int bucket(long millis) {
+        if (millis < 1) {
+            return 0;
+        }
+        int bucket = (int) Math.floor(Math.log(millis) / Math.log(2) * BUCKETS_PER_DOUBLING) + 1;
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket == 0) {
+            return 1;
+        }
+        return (long) Math.ceil(Math.pow(2, (double) bucket / BUCKETS_PER_DOUBLING));
+    }
+}
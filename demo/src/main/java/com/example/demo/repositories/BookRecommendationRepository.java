@@ -2,15 +2,33 @@ package com.example.demo.repositories;
 
 import java.util.List;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.models.BookRecommendation;
+import com.example.demo.models.RecommendedBook;
 import com.example.demo.models.User;
 
 @Repository
 public interface BookRecommendationRepository extends JpaRepository<BookRecommendation, Long> {
     List<BookRecommendation> findByUserOrderByScoreDesc(User user);
-    
-    void deleteByUser(User user);
+
+    // Страница рекомендаций без книг, которые уже есть в списках пользователя
+    @Query(value = "SELECT new com.example.demo.models.RecommendedBook(r.id, b.id, r.score, b.title, b.author, " +
+            "b.genre, b.coverUrl) FROM BookRecommendation r JOIN r.book b WHERE r.user.id = :userId " +
+            "AND NOT EXISTS (SELECT 1 FROM UserBook ub WHERE ub.user.id = :userId AND ub.book.id = b.id) " +
+            "ORDER BY r.score DESC, r.id ASC",
+            countQuery = "SELECT COUNT(r) FROM BookRecommendation r WHERE r.user.id = :userId " +
+                    "AND NOT EXISTS (SELECT 1 FROM UserBook ub WHERE ub.user.id = :userId AND ub.book.id = r.book.id)")
+    Page<RecommendedBook> findUnshelvedByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // Удаляет все рекомендации пользователя одним DELETE, без загрузки сущностей
+    @Modifying
+    @Query("DELETE FROM BookRecommendation r WHERE r.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
 } 
\ No newline at end of file
@@ -1,12 +1,16 @@
 package com.example.demo.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.example.demo.models.Book;
+import com.example.demo.models.BookGenre;
+import com.example.demo.models.GenreFacet;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
     // Поиск по названию (регистронезависимый)
@@ -18,6 +22,28 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     // Поиск по жанру
     List<Book> findByGenre(String genre);
 
+    // Keyset-пагинация каталога: страница после/до заданного id (размер задаётся через Pageable)
+    @Query("SELECT b FROM Book b WHERE (:afterId IS NULL OR b.id > :afterId) ORDER BY b.id ASC")
+    List<Book> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE b.id < :beforeId ORDER BY b.id DESC")
+    List<Book> findPageBefore(@Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE b.genre = :genre AND (:afterId IS NULL OR b.id > :afterId) ORDER BY b.id ASC")
+    List<Book> findPageByGenreAfter(@Param("genre") String genre, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE b.genre = :genre AND b.id < :beforeId ORDER BY b.id DESC")
+    List<Book> findPageByGenreBefore(@Param("genre") String genre, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    // Количество книг по каждому жанру (для фасетов каталога)
+    @Query("SELECT new com.example.demo.models.GenreFacet(b.genre, COUNT(b)) FROM Book b " +
+            "WHERE b.genre IS NOT NULL AND b.genre <> '' GROUP BY b.genre")
+    List<GenreFacet> countBooksByGenre();
+
+    // id и жанры книг из заданного набора жанров (кандидаты для рекомендаций)
+    @Query("SELECT new com.example.demo.models.BookGenre(b.id, b.genre) FROM Book b WHERE b.genre IN :genres")
+    List<BookGenre> findIdsByGenreIn(@Param("genres") Collection<String> genres);
+
     // Кастомный запрос для поиска книг не в списке пользователя
     @Query("SELECT b FROM Book b WHERE b.id NOT IN " +
             "(SELECT ub.book.id FROM UserBook ub WHERE ub.user.id = :userId)")
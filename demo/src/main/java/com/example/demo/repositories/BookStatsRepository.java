@@ -0,0 +1,82 @@
+package com.example.demo.repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.models.BookRating;
+import com.example.demo.models.BookStats;
+
+public interface BookStatsRepository extends JpaRepository<BookStats, Long> {
+
+    // Атомарно применяет приращения счётчиков, создавая строку при её отсутствии
+    @Modifying
+    @Query(value = "INSERT INTO book_stats (book_id, reading_count, finished_count, planned_count, " +
+            "dropped_count, rating_count, rating_sum) " +
+            "VALUES (:bookId, GREATEST(:reading, 0), GREATEST(:finished, 0), GREATEST(:planned, 0), " +
+            "GREATEST(:dropped, 0), GREATEST(:ratingCount, 0), GREATEST(:ratingSum, 0)) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "reading_count = reading_count + :reading, " +
+            "finished_count = finished_count + :finished, " +
+            "planned_count = planned_count + :planned, " +
+            "dropped_count = dropped_count + :dropped, " +
+            "rating_count = rating_count + :ratingCount, " +
+            "rating_sum = rating_sum + :ratingSum", nativeQuery = true)
+    void applyDelta(@Param("bookId") Long bookId,
+                    @Param("reading") long reading,
+                    @Param("finished") long finished,
+                    @Param("planned") long planned,
+                    @Param("dropped") long dropped,
+                    @Param("ratingCount") long ratingCount,
+                    @Param("ratingSum") long ratingSum);
+
+    // Оценки всех книг, у которых они есть, по возрастанию id
+    @Query("SELECT new com.example.demo.models.BookRating(s.bookId, s.ratingCount, s.ratingSum) " +
+            "FROM BookStats s WHERE s.ratingCount > 0 ORDER BY s.bookId ASC")
+    List<BookRating> findRatings();
+
+    @Query("SELECT MAX(s.bookId) FROM BookStats s")
+    Long findMaxBookId();
+
+    List<BookStats> findByBookIdBetween(Long from, Long to);
+
+    // Счётчики книг из диапазона id, посчитанные по user_book
+    @Query("SELECT new com.example.demo.models.BookStats(ub.book.id, " +
+            "SUM(CASE WHEN ub.status = com.example.demo.models.ReadingStatus.READING THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN ub.status = com.example.demo.models.ReadingStatus.FINISHED THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN ub.status = com.example.demo.models.ReadingStatus.WANT_TO_READ THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN ub.status = com.example.demo.models.ReadingStatus.DROPPED THEN 1L ELSE 0L END), " +
+            "COUNT(ub.rating), COALESCE(SUM(ub.rating), 0L)) " +
+            "FROM UserBook ub WHERE ub.book.id BETWEEN :from AND :to GROUP BY ub.book.id")
+    List<BookStats> countFromShelves(@Param("from") Long from, @Param("to") Long to);
+
+    // Исправления при пересчёте применяются, только если строка не изменилась после чтения:
+    // иначе её уже обновила транзакция изменения полки, и перезапись потеряла бы эту дельту
+    @Modifying
+    @Query("UPDATE BookStats s SET s.readingCount = :#{#actual.readingCount}, " +
+            "s.finishedCount = :#{#actual.finishedCount}, s.plannedCount = :#{#actual.plannedCount}, " +
+            "s.droppedCount = :#{#actual.droppedCount}, s.ratingCount = :#{#actual.ratingCount}, " +
+            "s.ratingSum = :#{#actual.ratingSum} " +
+            "WHERE s.bookId = :#{#expected.bookId} AND s.readingCount = :#{#expected.readingCount} " +
+            "AND s.finishedCount = :#{#expected.finishedCount} AND s.plannedCount = :#{#expected.plannedCount} " +
+            "AND s.droppedCount = :#{#expected.droppedCount} AND s.ratingCount = :#{#expected.ratingCount} " +
+            "AND s.ratingSum = :#{#expected.ratingSum}")
+    int updateIfUnchanged(@Param("expected") BookStats expected, @Param("actual") BookStats actual);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO book_stats (book_id, reading_count, finished_count, planned_count, " +
+            "dropped_count, rating_count, rating_sum) VALUES (:#{#stats.bookId}, :#{#stats.readingCount}, " +
+            ":#{#stats.finishedCount}, :#{#stats.plannedCount}, :#{#stats.droppedCount}, " +
+            ":#{#stats.ratingCount}, :#{#stats.ratingSum})", nativeQuery = true)
+    int insertIfAbsent(@Param("stats") BookStats stats);
+
+    @Modifying
+    @Query("DELETE FROM BookStats s WHERE s.bookId = :#{#expected.bookId} " +
+            "AND s.readingCount = :#{#expected.readingCount} AND s.finishedCount = :#{#expected.finishedCount} " +
+            "AND s.plannedCount = :#{#expected.plannedCount} AND s.droppedCount = :#{#expected.droppedCount} " +
+            "AND s.ratingCount = :#{#expected.ratingCount} AND s.ratingSum = :#{#expected.ratingSum}")
+    int deleteIfUnchanged(@Param("expected") BookStats expected);
+}
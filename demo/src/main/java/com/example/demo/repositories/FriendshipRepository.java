@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.demo.models.Friendship;
 import com.example.demo.models.FriendshipStatus;
@@ -28,4 +30,10 @@ public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
 
     // Найти друзей пользователя
     List<Friendship> findByRequesterOrReceiverAndStatus(User requester, User receiver, FriendshipStatus status);
-}
\ No newline at end of file
+
+    // id всех друзей пользователя (принятая дружба в любом направлении) одним запросом
+    @Query("SELECT CASE WHEN f.requester.id = :userId THEN f.receiver.id ELSE f.requester.id END " +
+            "FROM Friendship f WHERE f.status = com.example.demo.models.FriendshipStatus.ACCEPTED " +
+            "AND (f.requester.id = :userId OR f.receiver.id = :userId)")
+    List<Long> findFriendIds(@Param("userId") Long userId);
+}
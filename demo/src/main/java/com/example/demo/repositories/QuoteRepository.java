@@ -3,6 +3,8 @@ package com.example.demo.repositories;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.demo.models.Book;
 import com.example.demo.models.Quote;
@@ -12,4 +14,7 @@ public interface QuoteRepository extends JpaRepository<Quote, Long> {
     List<Quote> findByBookOrderByCreatedAtDesc(Book book);
     List<Quote> findByUserOrderByCreatedAtDesc(User user);
     int countByUser(User user);
+
+    @Query("SELECT DISTINCT q.book.id FROM Quote q WHERE q.user.id = :userId")
+    List<Long> findBookIdsByUserId(@Param("userId") Long userId);
 } 
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.models.RecommendationDirtyUser;
+
+public interface RecommendationDirtyUserRepository extends JpaRepository<RecommendationDirtyUser, Long> {
+
+    // Отмечает пользователя; повторная отметка только сдвигает время
+    @Modifying
+    @Query(value = "INSERT INTO recommendation_dirty_user (user_id, marked_at) VALUES (:userId, :markedAt) " +
+            "ON DUPLICATE KEY UPDATE marked_at = GREATEST(marked_at, :markedAt)", nativeQuery = true)
+    void markDirty(@Param("userId") Long userId, @Param("markedAt") LocalDateTime markedAt);
+
+    // Отмечает всех, кто прочитал хотя бы одну книгу из заданных жанров
+    @Modifying
+    @Query(value = "INSERT INTO recommendation_dirty_user (user_id, marked_at) " +
+            "SELECT DISTINCT ub.user_id, :markedAt FROM user_book ub JOIN book b ON b.id = ub.book_id " +
+            "WHERE ub.status = 'FINISHED' AND b.genre IN (:genres) " +
+            "ON DUPLICATE KEY UPDATE marked_at = GREATEST(marked_at, :markedAt)", nativeQuery = true)
+    int markReadersOfGenres(@Param("genres") Collection<String> genres, @Param("markedAt") LocalDateTime markedAt);
+
+    // Keyset-перебор отмеченных пользователей по возрастанию id
+    @Query("SELECT d.userId FROM RecommendationDirtyUser d " +
+            "WHERE (:afterId IS NULL OR d.userId > :afterId) ORDER BY d.userId ASC")
+    List<Long> findUserIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Снимает отметку, если пользователь не менялся после начала пересчёта
+    @Modifying
+    @Query("DELETE FROM RecommendationDirtyUser d WHERE d.userId IN :userIds AND d.markedAt <= :since")
+    int deleteProcessed(@Param("userIds") Collection<Long> userIds, @Param("since") LocalDateTime since);
+}
@@ -0,0 +1,33 @@
+package com.example.demo.repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.models.RecommendationRatingSnapshot;
+
+public interface RecommendationRatingSnapshotRepository extends JpaRepository<RecommendationRatingSnapshot, Long> {
+
+    // Жанры книг, средняя оценка которых сдвинулась не меньше чем на threshold.
+    // Книга без оценок считается оценённой в 5, как и при расчёте рекомендаций
+    @Query(value = "SELECT DISTINCT b.genre FROM book b " +
+            "LEFT JOIN book_stats s ON s.book_id = b.id " +
+            "LEFT JOIN recommendation_rating_snapshot r ON r.book_id = b.id " +
+            "WHERE b.genre IS NOT NULL AND b.genre <> '' AND (s.book_id IS NOT NULL OR r.book_id IS NOT NULL) " +
+            "AND ABS(COALESCE(s.rating_sum / NULLIF(s.rating_count, 0), 5) " +
+            "- COALESCE(r.rating_sum / NULLIF(r.rating_count, 0), 5)) >= :threshold", nativeQuery = true)
+    List<String> findGenresWithRatingShift(@Param("threshold") double threshold);
+
+    @Modifying
+    @Query(value = "DELETE FROM recommendation_rating_snapshot", nativeQuery = true)
+    void deleteAllSnapshots();
+
+    @Modifying
+    @Query(value = "INSERT INTO recommendation_rating_snapshot (book_id, rating_count, rating_sum) " +
+            "SELECT s.book_id, s.rating_count, s.rating_sum FROM book_stats s WHERE s.rating_count > 0",
+            nativeQuery = true)
+    int snapshotAll();
+}
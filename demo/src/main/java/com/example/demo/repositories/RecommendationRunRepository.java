@@ -0,0 +1,41 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.models.RecommendationRun;
+import com.example.demo.models.RecommendationRunStatus;
+
+public interface RecommendationRunRepository extends JpaRepository<RecommendationRun, Long> {
+
+    Optional<RecommendationRun> findFirstByStatusOrderByIdDesc(RecommendationRunStatus status);
+
+    Optional<RecommendationRun> findFirstByOrderByIdDesc();
+
+    // Сохраняет контрольную точку и счётчики без загрузки сущности
+    @Modifying
+    @Transactional
+    @Query("UPDATE RecommendationRun r SET r.lastUserId = :lastUserId, r.processedUsers = :processed, " +
+            "r.failedUsers = :failed, r.userMillis = :userMillis, r.lastError = :lastError WHERE r.id = :id")
+    void updateProgress(@Param("id") Long id,
+                        @Param("lastUserId") Long lastUserId,
+                        @Param("processed") long processed,
+                        @Param("failed") long failed,
+                        @Param("userMillis") long userMillis,
+                        @Param("lastError") String lastError);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RecommendationRun r SET r.status = :status, r.finishedAt = :finishedAt, " +
+            "r.durationMillis = :durationMillis WHERE r.id = :id")
+    void finish(@Param("id") Long id,
+                @Param("status") RecommendationRunStatus status,
+                @Param("finishedAt") LocalDateTime finishedAt,
+                @Param("durationMillis") long durationMillis);
+}
@@ -1,8 +1,13 @@
 package com.example.demo.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.demo.models.Book;
 import com.example.demo.models.Review;
@@ -18,5 +23,18 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     // Находим все ответы на конкретный отзыв, сортированные по дате
     List<Review> findByParentReviewOrderByCreatedAtAsc(Review parentReview);
 
+    // Страница корневых отзывов книги вместе с авторами (порядок задаётся через Pageable)
+    @Query(value = "SELECT r FROM Review r JOIN FETCH r.user WHERE r.book.id = :bookId AND r.parentReview IS NULL",
+           countQuery = "SELECT COUNT(r) FROM Review r WHERE r.book.id = :bookId AND r.parentReview IS NULL")
+    Page<Review> findRootPageByBookId(@Param("bookId") Long bookId, Pageable pageable);
+
+    // Все ответы на заданные отзывы вместе с авторами одним запросом
+    @Query("SELECT r FROM Review r JOIN FETCH r.user WHERE r.parentReview.id IN :parentIds ORDER BY r.createdAt ASC, r.id ASC")
+    List<Review> findRepliesByParentIds(@Param("parentIds") Collection<Long> parentIds);
+
     int countByUser(User user);
+
+    // Книги с отзывами или ответами пользователя
+    @Query("SELECT DISTINCT r.book.id FROM Review r WHERE r.user.id = :userId")
+    List<Long> findBookIdsByUserId(@Param("userId") Long userId);
 } 
\ No newline at end of file
@@ -1,14 +1,20 @@
 package com.example.demo.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.models.Book;
+import com.example.demo.models.FriendReading;
+import com.example.demo.models.GenreFacet;
+import com.example.demo.models.ReadingInteraction;
 import com.example.demo.models.ReadingStatus;
+import com.example.demo.models.ShelfEntry;
 import com.example.demo.models.User;
 import com.example.demo.models.UserBook;
 
@@ -17,6 +23,41 @@ public interface UserBookRepository extends JpaRepository<UserBook, Long> {
     // Найти все книги пользователя
     List<UserBook> findByUser(User user);
 
+    // Облегчённая проекция полки пользователя, отсортированная по id книги
+    @Query("SELECT new com.example.demo.models.ShelfEntry(ub.book.id, ub.status, ub.rating, ub.isFavorite) " +
+            "FROM UserBook ub WHERE ub.user.id = :userId ORDER BY ub.book.id ASC, ub.id ASC")
+    List<ShelfEntry> findShelfEntries(@Param("userId") Long userId);
+
+    // Количество прочитанных пользователем книг по жанрам
+    @Query("SELECT new com.example.demo.models.GenreFacet(b.genre, COUNT(ub)) FROM UserBook ub JOIN ub.book b " +
+            "WHERE ub.user.id = :userId AND ub.status = com.example.demo.models.ReadingStatus.FINISHED " +
+            "AND b.genre IS NOT NULL AND b.genre <> '' GROUP BY b.genre")
+    List<GenreFacet> countFinishedByGenre(@Param("userId") Long userId);
+
+    @Query("SELECT MAX(ub.book.id) FROM UserBook ub")
+    Long findMaxBookId();
+
+    @Query("SELECT MAX(ub.user.id) FROM UserBook ub")
+    Long findMaxUserId();
+
+    // Keyset-перебор записей с заданными статусами по возрастанию id (для построения модели сходства книг)
+    @Query("SELECT new com.example.demo.models.ReadingInteraction(ub.id, ub.user.id, ub.book.id, ub.status, ub.rating) " +
+            "FROM UserBook ub WHERE ub.status IN :statuses AND (:afterId IS NULL OR ub.id > :afterId) ORDER BY ub.id ASC")
+    List<ReadingInteraction> findInteractionsAfter(@Param("statuses") Collection<ReadingStatus> statuses,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable pageable);
+
+    // Книги, дочитанные и высоко оценённые друзьями, которых ещё нет в списках пользователя
+    @Query("SELECT new com.example.demo.models.FriendReading(ub.book.id, COUNT(DISTINCT ub.user.id), AVG(ub.rating)) " +
+            "FROM UserBook ub WHERE ub.user.id IN :friendIds " +
+            "AND ub.status = com.example.demo.models.ReadingStatus.FINISHED AND ub.rating >= :minRating " +
+            "AND NOT EXISTS (SELECT 1 FROM UserBook mine WHERE mine.user.id = :userId AND mine.book.id = ub.book.id) " +
+            "GROUP BY ub.book.id ORDER BY COUNT(DISTINCT ub.user.id) DESC, AVG(ub.rating) DESC, ub.book.id ASC")
+    List<FriendReading> findFriendReadings(@Param("userId") Long userId,
+                                           @Param("friendIds") Collection<Long> friendIds,
+                                           @Param("minRating") int minRating,
+                                           Pageable pageable);
+
     // Найти книги пользователя по статусу
     List<UserBook> findByUserAndStatus(User user, ReadingStatus status);
 
@@ -0,0 +1,87 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.models.GenreFacet;
+import com.example.demo.models.ReadingPeriodCount;
+import com.example.demo.models.UserReadingDaily;
+
+public interface UserReadingDailyRepository extends JpaRepository<UserReadingDaily, UserReadingDaily.Key> {
+
+    // Атомарно применяет приращение, создавая строку при её отсутствии
+    @Modifying
+    @Query(value = "INSERT INTO user_reading_daily (user_id, reading_day, genre, finished_count) " +
+            "VALUES (:userId, :day, :genre, GREATEST(:delta, 0)) " +
+            "ON DUPLICATE KEY UPDATE finished_count = GREATEST(finished_count + :delta, 0)", nativeQuery = true)
+    void applyDelta(@Param("userId") Long userId,
+                    @Param("day") LocalDate day,
+                    @Param("genre") String genre,
+                    @Param("delta") long delta);
+
+    // Прочитанные книги пользователя за период, сгруппированные по годам, месяцам, дням и жанрам
+    @Query("SELECT new com.example.demo.models.ReadingPeriodCount(YEAR(r.day), SUM(r.count)) " +
+            "FROM UserReadingDaily r WHERE r.userId = :userId AND r.day BETWEEN :from AND :to AND r.count > 0 " +
+            "GROUP BY YEAR(r.day)")
+    List<ReadingPeriodCount> countByYear(@Param("userId") Long userId,
+                                         @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to);
+
+    @Query("SELECT new com.example.demo.models.ReadingPeriodCount(YEAR(r.day), MONTH(r.day), SUM(r.count)) " +
+            "FROM UserReadingDaily r WHERE r.userId = :userId AND r.day BETWEEN :from AND :to AND r.count > 0 " +
+            "GROUP BY YEAR(r.day), MONTH(r.day)")
+    List<ReadingPeriodCount> countByMonth(@Param("userId") Long userId,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to);
+
+    @Query("SELECT new com.example.demo.models.ReadingPeriodCount(YEAR(r.day), MONTH(r.day), DAY(r.day), SUM(r.count)) " +
+            "FROM UserReadingDaily r WHERE r.userId = :userId AND r.day BETWEEN :from AND :to AND r.count > 0 " +
+            "GROUP BY r.day")
+    List<ReadingPeriodCount> countByDay(@Param("userId") Long userId,
+                                        @Param("from") LocalDate from,
+                                        @Param("to") LocalDate to);
+
+    @Query("SELECT new com.example.demo.models.GenreFacet(r.genre, SUM(r.count)) " +
+            "FROM UserReadingDaily r WHERE r.userId = :userId AND r.day BETWEEN :from AND :to " +
+            "AND r.genre <> '' AND r.count > 0 GROUP BY r.genre")
+    List<GenreFacet> countByGenre(@Param("userId") Long userId,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to);
+
+    @Query("SELECT MAX(r.userId) FROM UserReadingDaily r")
+    Long findMaxUserId();
+
+    List<UserReadingDaily> findByUserIdBetween(Long from, Long to);
+
+    // Строки пользователей из диапазона id, посчитанные по user_book
+    // (идут по индексу idx_user_book_user_status_finished)
+    @Query("SELECT new com.example.demo.models.UserReadingDaily(ub.user.id, CAST(ub.finishedDate AS LocalDate), " +
+            "COALESCE(b.genre, ''), COUNT(ub)) " +
+            "FROM UserBook ub JOIN ub.book b WHERE ub.user.id BETWEEN :from AND :to " +
+            "AND ub.status = com.example.demo.models.ReadingStatus.FINISHED AND ub.finishedDate IS NOT NULL " +
+            "GROUP BY ub.user.id, CAST(ub.finishedDate AS LocalDate), COALESCE(b.genre, '')")
+    List<UserReadingDaily> countFromShelves(@Param("from") Long from, @Param("to") Long to);
+
+    // Исправления при пересчёте применяются, только если строка не изменилась после чтения
+    // (см. BookStatsRepository.updateIfUnchanged)
+    @Modifying
+    @Query("UPDATE UserReadingDaily r SET r.count = :#{#actual.count} " +
+            "WHERE r.userId = :#{#expected.userId} AND r.day = :#{#expected.day} " +
+            "AND r.genre = :#{#expected.genre} AND r.count = :#{#expected.count}")
+    int updateIfUnchanged(@Param("expected") UserReadingDaily expected, @Param("actual") UserReadingDaily actual);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_reading_daily (user_id, reading_day, genre, finished_count) " +
+            "VALUES (:#{#row.userId}, :#{#row.day}, :#{#row.genre}, :#{#row.count})", nativeQuery = true)
+    int insertIfAbsent(@Param("row") UserReadingDaily row);
+
+    @Modifying
+    @Query("DELETE FROM UserReadingDaily r WHERE r.userId = :#{#expected.userId} AND r.day = :#{#expected.day} " +
+            "AND r.genre = :#{#expected.genre} AND r.count = :#{#expected.count}")
+    int deleteIfUnchanged(@Param("expected") UserReadingDaily expected);
+}
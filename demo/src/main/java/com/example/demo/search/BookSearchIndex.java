@@ -0,0 +1,239 @@
+package com.example.demo.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс книг по названию, автору и описанию.
+ * Каждое слово запроса сопоставляется с терминами индекса точно или по префиксу,
+ * книга попадает в выдачу, только если совпали все слова запроса.
+ * Релевантность - сумма весов полей, в которых встретился термин, умноженная на idf.
+ */
+public class BookSearchIndex {
+
+    public static final float TITLE_WEIGHT = 3.0f;
+    public static final float AUTHOR_WEIGHT = 2.0f;
+    public static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Совпадение по префиксу ценится ниже точного совпадения слова
+    private static final float PREFIX_FACTOR = 0.6f;
+
+    public static final class Result {
+        private final int total;
+        private final List<Long> bookIds;
+
+        public Result(int total, List<Long> bookIds) {
+            this.total = total;
+            this.bookIds = bookIds;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<Long> getBookIds() {
+            return bookIds;
+        }
+    }
+
+    // Отсортированный по номеру документа список вхождений термина
+    private static final class PostingList {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        void add(int doc, float weight) {
+            int index = Arrays.binarySearch(docs, 0, size, doc);
+            if (index >= 0) {
+                weights[index] = weight;
+                return;
+            }
+            index = -index - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(docs, index, docs, index + 1, size - index);
+            System.arraycopy(weights, index, weights, index + 1, size - index);
+            docs[index] = doc;
+            weights[index] = weight;
+            size++;
+        }
+
+        void remove(int doc) {
+            int index = Arrays.binarySearch(docs, 0, size, doc);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(docs, index + 1, docs, index, size - index - 1);
+            System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+            size--;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, PostingList> terms = new TreeMap<>();
+    private final Map<Long, Integer> docByBookId = new HashMap<>();
+    private final Deque<Integer> freeDocs = new ArrayDeque<>();
+
+    private long[] bookIds = new long[1024];
+    private String[] sortKeys = new String[1024];
+    private String[][] docTerms = new String[1024][];
+    private int docLimit;
+
+    public void put(long bookId, String title, String author, String description) {
+        Map<String, Float> termWeights = new HashMap<>();
+        addField(termWeights, title, TITLE_WEIGHT);
+        addField(termWeights, author, AUTHOR_WEIGHT);
+        addField(termWeights, description, DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(bookId);
+            int doc = allocateDoc();
+            bookIds[doc] = bookId;
+            sortKeys[doc] = TextNormalizer.fold(title);
+            docTerms[doc] = termWeights.keySet().toArray(new String[0]);
+            docByBookId.put(bookId, doc);
+            termWeights.forEach((term, weight) -> terms.computeIfAbsent(term, t -> new PostingList()).add(doc, weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByBookId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Result search(String query, int offset, int limit) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return new Result(0, List.of());
+        }
+
+        lock.readLock().lock();
+        try {
+            int documents = docByBookId.size();
+            Map<Integer, Float> scores = null;
+            for (String token : tokens) {
+                Map<Integer, Float> tokenScores = new HashMap<>();
+                PostingList exact = terms.get(token);
+                if (exact != null) {
+                    collect(tokenScores, exact, idf(documents, exact.size));
+                }
+                NavigableMap<String, PostingList> prefixed =
+                        terms.subMap(token, false, token + Character.MAX_VALUE, false);
+                for (PostingList postings : prefixed.values()) {
+                    collect(tokenScores, postings, idf(documents, postings.size) * PREFIX_FACTOR);
+                }
+
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    Map<Integer, Float> intersection = new HashMap<>();
+                    for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+                        Float tokenScore = tokenScores.get(entry.getKey());
+                        if (tokenScore != null) {
+                            intersection.put(entry.getKey(), entry.getValue() + tokenScore);
+                        }
+                    }
+                    scores = intersection;
+                }
+                if (scores.isEmpty()) {
+                    return new Result(0, List.of());
+                }
+            }
+
+            Map<Integer, Float> ranked = scores;
+            List<Integer> docs = new ArrayList<>(ranked.keySet());
+            docs.sort(Comparator.<Integer>comparingDouble(doc -> -ranked.get(doc))
+                    .thenComparing(doc -> sortKeys[doc])
+                    .thenComparingLong(doc -> bookIds[doc]));
+
+            int from = Math.min(Math.max(offset, 0), docs.size());
+            int to = Math.min(from + Math.max(limit, 0), docs.size());
+            List<Long> page = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                page.add(bookIds[docs.get(i)]);
+            }
+            return new Result(docs.size(), page);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void addField(Map<String, Float> termWeights, String text, float weight) {
+        // Повтор слова внутри одного поля не увеличивает вес
+        for (String term : new LinkedHashSet<>(TextNormalizer.tokenize(text))) {
+            termWeights.merge(term, weight, Float::sum);
+        }
+    }
+
+    private static float idf(int documents, int frequency) {
+        return (float) Math.log(1.0 + (double) documents / Math.max(frequency, 1));
+    }
+
+    private static void collect(Map<Integer, Float> scores, PostingList postings, float factor) {
+        for (int i = 0; i < postings.size; i++) {
+            scores.merge(postings.docs[i], postings.weights[i] * factor, Math::max);
+        }
+    }
+
+    private int allocateDoc() {
+        Integer free = freeDocs.poll();
+        if (free != null) {
+            return free;
+        }
+        if (docLimit == bookIds.length) {
+            int capacity = docLimit * 2;
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            sortKeys = Arrays.copyOf(sortKeys, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+        }
+        return docLimit++;
+    }
+
+    private void removeInternal(long bookId) {
+        Integer doc = docByBookId.remove(bookId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : docTerms[doc]) {
+            PostingList postings = terms.get(term);
+            if (postings != null) {
+                postings.remove(doc);
+                if (postings.size == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+        docTerms[doc] = null;
+        sortKeys[doc] = null;
+        freeDocs.push(doc);
+    }
+}
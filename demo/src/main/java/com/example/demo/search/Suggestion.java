@@ -0,0 +1,35 @@
+package com.example.demo.search;
+
+/**
+ * Подсказка автодополнения: название книги или имя автора.
+ */
+public class Suggestion {
+
+    public enum Type {
+        TITLE,
+        AUTHOR
+    }
+
+    private final String text;
+    private final Type type;
+    private final Long bookId;
+
+    public Suggestion(String text, Type type, Long bookId) {
+        this.text = text;
+        this.type = type;
+        this.bookId = bookId;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    // id книги для подсказки-названия, null для автора
+    public Long getBookId() {
+        return bookId;
+    }
+}
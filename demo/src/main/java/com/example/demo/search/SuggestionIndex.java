@@ -0,0 +1,155 @@
+package com.example.demo.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import com.example.demo.cache.LruCache;
+
+/**
+ * Неизменяемый индекс автодополнения. Слова всех подсказок хранятся в отсортированном
+ * массиве, списки подсказок для каждого слова - в одном общем массиве int (формат CSR).
+ * Последнее слово запроса ищется как префикс бинарным поиском, остальные слова
+ * проверяются по тексту подсказки. Из найденных выбираются N с наибольшим весом.
+ */
+public final class SuggestionIndex {
+
+    private static final int MAX_CACHED_QUERIES = 2048;
+
+    public static final class Builder {
+        private final List<String> texts = new ArrayList<>();
+        private final List<Suggestion.Type> types = new ArrayList<>();
+        private final List<Long> bookIds = new ArrayList<>();
+        private final List<Integer> weights = new ArrayList<>();
+
+        public Builder add(String text, Suggestion.Type type, Long bookId, int weight) {
+            if (text != null && !text.isBlank()) {
+                texts.add(text.trim());
+                types.add(type);
+                bookIds.add(bookId);
+                weights.add(weight);
+            }
+            return this;
+        }
+
+        public SuggestionIndex build() {
+            return new SuggestionIndex(this);
+        }
+    }
+
+    private final String[] texts;
+    private final String[] searchTexts;
+    private final Suggestion.Type[] types;
+    private final long[] bookIds;
+    private final int[] weights;
+
+    private final String[] words;
+    private final int[] wordStart;
+    private final int[] postings;
+
+    // Индекс неизменяем, поэтому результаты популярных префиксов можно кэшировать
+    private final LruCache<String, List<Suggestion>> results = new LruCache<>(MAX_CACHED_QUERIES, 0);
+
+    private SuggestionIndex(Builder builder) {
+        int size = builder.texts.size();
+        texts = builder.texts.toArray(new String[0]);
+        types = builder.types.toArray(new Suggestion.Type[0]);
+        searchTexts = new String[size];
+        bookIds = new long[size];
+        weights = new int[size];
+
+        TreeMap<String, List<Integer>> entriesByWord = new TreeMap<>();
+        int postingCount = 0;
+        for (int i = 0; i < size; i++) {
+            Long bookId = builder.bookIds.get(i);
+            bookIds[i] = bookId != null ? bookId : -1L;
+            weights[i] = builder.weights.get(i);
+            List<String> tokens = TextNormalizer.tokenize(texts[i]);
+            searchTexts[i] = " " + String.join(" ", tokens);
+            for (String token : tokens.stream().distinct().toList()) {
+                entriesByWord.computeIfAbsent(token, w -> new ArrayList<>()).add(i);
+                postingCount++;
+            }
+        }
+
+        words = entriesByWord.keySet().toArray(new String[0]);
+        wordStart = new int[words.length + 1];
+        postings = new int[postingCount];
+        int position = 0;
+        int word = 0;
+        for (List<Integer> entries : entriesByWord.values()) {
+            wordStart[word++] = position;
+            for (int entry : entries) {
+                postings[position++] = entry;
+            }
+        }
+        wordStart[words.length] = position;
+    }
+
+    public int size() {
+        return texts.length;
+    }
+
+    public List<Suggestion> suggest(String query, int limit) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String key = String.join(" ", tokens) + "|" + limit;
+        return results.get(key, k -> lookup(tokens, limit));
+    }
+
+    private List<Suggestion> lookup(List<String> tokens, int limit) {
+        String prefix = tokens.get(tokens.size() - 1);
+        List<String> others = tokens.subList(0, tokens.size() - 1);
+
+        Comparator<Integer> byRank = Comparator.<Integer>comparingInt(entry -> weights[entry])
+                .thenComparing(entry -> texts[entry], Comparator.reverseOrder());
+        // Минимальная куча: в вершине худшая из лучших N подсказок
+        PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, byRank);
+        BitSet seen = new BitSet(texts.length);
+
+        int from = Arrays.binarySearch(words, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        for (int w = from; w < words.length && words[w].startsWith(prefix); w++) {
+            for (int p = wordStart[w]; p < wordStart[w + 1]; p++) {
+                int entry = postings[p];
+                if (seen.get(entry)) {
+                    continue;
+                }
+                seen.set(entry);
+                if (!matchesAll(entry, others)) {
+                    continue;
+                }
+                top.offer(entry);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+
+        List<Integer> ranked = new ArrayList<>(top);
+        ranked.sort(byRank.reversed());
+        List<Suggestion> suggestions = new ArrayList<>(ranked.size());
+        for (int entry : ranked) {
+            suggestions.add(new Suggestion(texts[entry], types[entry], bookIds[entry] >= 0 ? bookIds[entry] : null));
+        }
+        return List.copyOf(suggestions);
+    }
+
+    // Остальные слова запроса должны совпадать с началом какого-либо слова подсказки
+    private boolean matchesAll(int entry, List<String> others) {
+        for (String token : others) {
+            if (!searchTexts[entry].contains(" " + token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Нормализация текста для поиска: нижний регистр, удаление диакритики
+ * (ё → е, é → e, но й остаётся отдельной буквой) и разбиение на слова по символам, не являющимся буквами или цифрами.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    // Приводит строку к нижнему регистру и убирает диакритические знаки, кроме краткой у й
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        boolean ascii = true;
+        for (int i = 0; i < lower.length() && ascii; i++) {
+            ascii = lower.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            return lower;
+        }
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            int last = folded.length() - 1;
+            if (c == '\u0306' && last >= 0 && folded.charAt(last) == 'и') {
+                // NFD раскладывает й на и + бреве: «мой» и «мои» - разные слова
+                folded.setCharAt(last, 'й');
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    public static List<String> tokenize(String text) {
+        String folded = fold(text);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.demo.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.cache.CacheStats;
+import com.example.demo.cache.LruCache;
+import com.example.demo.events.BookChangedEvent;
+import com.example.demo.models.Book;
+import com.example.demo.repositories.BookRepository;
+import com.example.demo.search.BookSearchIndex;
+import com.example.demo.search.TextNormalizer;
+
+/**
+ * Полнотекстовый поиск по каталогу через in-memory индекс {@link BookSearchIndex}.
+ * Индекс строится при старте приложения и обновляется по событиям изменения книг;
+ * пока он не построен, поиск выполняется запросом к БД, а события копятся и применяются
+ * после построения поверх прочитанных пачек, которые могли устареть.
+ * Идентификаторы найденных книг кэшируются по нормализованному запросу и номеру страницы;
+ * любое изменение каталога сбрасывает кэш.
+ */
+@Service
+public class BookSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(BookSearchService.class);
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final BookSearchIndex index = new BookSearchIndex();
+    private final LruCache<String, BookSearchIndex.Result> results;
+    private volatile boolean ready;
+    // События, пришедшие во время построения индекса; доступ под блокировкой списка
+    private final List<BookChangedEvent> pending = new ArrayList<>();
+
+    public BookSearchService(BookRepository bookRepository,
+                             @Value("${search.cache.max-size:1000}") int cacheSize,
+                             @Value("${search.cache.ttl-seconds:300}") long cacheTtlSeconds) {
+        this.bookRepository = bookRepository;
+        this.results = new LruCache<>(cacheSize, cacheTtlSeconds * 1000);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        Long lastId = null;
+        List<Book> batch;
+        do {
+            batch = bookRepository.findPageAfter(lastId, PageRequest.of(0, BUILD_BATCH_SIZE));
+            for (Book book : batch) {
+                index(book);
+            }
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == BUILD_BATCH_SIZE);
+        synchronized (pending) {
+            pending.forEach(this::apply);
+            pending.clear();
+            ready = true;
+        }
+        // Результаты, полученные запросом к БД до построения индекса, ранжированы иначе
+        results.invalidateAll();
+        logger.info("Built search index: {} books in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    public Page<Book> search(String query, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size);
+        BookSearchIndex.Result result;
+        if (ready) {
+            // Ключ строится той же нормализацией, что и индекс: запросы с одинаковыми токенами
+            // («Ёлка» и «елка») дают одинаковый результат
+            String key = String.join(" ", TextNormalizer.tokenize(query)) + "|" + pageRequest.getOffset() + "|" + size;
+            result = results.get(key, k -> find(query, (int) pageRequest.getOffset(), size));
+        } else {
+            // Запрос к БД до построения индекса не кэшируем: LIKE различает то, что склеивает индекс
+            result = find(query, (int) pageRequest.getOffset(), size);
+        }
+        if (result.getBookIds().isEmpty()) {
+            return new PageImpl<>(List.of(), pageRequest, result.getTotal());
+        }
+        // Загружаем только книги текущей страницы и восстанавливаем порядок релевантности
+        Map<Long, Book> books = bookRepository.findAllById(result.getBookIds()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Book> content = result.getBookIds().stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, pageRequest, result.getTotal());
+    }
+
+    public CacheStats getCacheStats() {
+        return CacheStats.of("search-results", results);
+    }
+
+    private BookSearchIndex.Result find(String query, int offset, int size) {
+        if (ready) {
+            return index.search(query, offset, size);
+        }
+        List<Book> all = bookRepository.searchBooks(query);
+        int from = Math.min(offset, all.size());
+        int to = Math.min(from + size, all.size());
+        List<Long> bookIds = all.subList(from, to).stream().map(Book::getId).toList();
+        return new BookSearchIndex.Result(all.size(), bookIds);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!ready) {
+            synchronized (pending) {
+                if (!ready) {
+                    pending.add(event);
+                    return;
+                }
+            }
+        }
+        apply(event);
+    }
+
+    private void apply(BookChangedEvent event) {
+        Book book = event.getBook();
+        if (event.getType() == BookChangedEvent.Type.DELETED) {
+            index.remove(book.getId());
+        } else {
+            index(book);
+        }
+        results.invalidateAll();
+    }
+
+    private void index(Book book) {
+        index.put(book.getId(), book.getTitle(), book.getAuthor(), book.getDescription());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.services;
+
+import java.time.LocalDateTime;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.events.ShelfChangedEvent;
+import com.example.demo.models.Book;
+import com.example.demo.models.ReadingStatus;
+import com.example.demo.models.User;
+import com.example.demo.models.UserBook;
+import com.example.demo.repositories.UserBookRepository;
+
+/**
+ * Изменения полки пользователя (записи UserBook). Каждое изменение выполняется
+ * в одной транзакции вместе с обновлением производных счётчиков, дневной статистики чтения
+ * и отметкой о необходимости пересчитать рекомендации пользователя.
+ */
+@Service
+public class BookShelfService {
+    private final UserBookRepository userBookRepository;
+    private final BookStatsService bookStatsService;
+    private final UserReadingDailyService userReadingDailyService;
+    private final RecommendationChangeTracker recommendationChangeTracker;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BookShelfService(UserBookRepository userBookRepository,
+                            BookStatsService bookStatsService,
+                            UserReadingDailyService userReadingDailyService,
+                            RecommendationChangeTracker recommendationChangeTracker,
+                            ApplicationEventPublisher eventPublisher) {
+        this.userBookRepository = userBookRepository;
+        this.bookStatsService = bookStatsService;
+        this.userReadingDailyService = userReadingDailyService;
+        this.recommendationChangeTracker = recommendationChangeTracker;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional
+    public UserBook addBook(User user, Book book, ReadingStatus status) {
+        UserBook userBook = new UserBook();
+        userBook.setUser(user);
+        userBook.setBook(book);
+        userBook.setStatus(status);
+
+        // Устанавливаем дату завершения, если статус "Прочитано"
+        if (status == ReadingStatus.FINISHED) {
+            userBook.setFinishedDate(LocalDateTime.now());
+        }
+
+        userBookRepository.save(userBook);
+        bookStatsService.applyChange(book.getId(), null, null, status, null);
+        userReadingDailyService.applyChange(user.getId(), book.getGenre(), null, finishedDate(userBook));
+        shelfChanged(user, book);
+        return userBook;
+    }
+
+    // Возвращает null, если книги нет в списке пользователя
+    @Transactional
+    public UserBook updateStatus(User user, Book book, ReadingStatus newStatus) {
+        UserBook userBook = userBookRepository.findByUserAndBook(user, book);
+        if (userBook == null) {
+            return null;
+        }
+
+        ReadingStatus oldStatus = userBook.getStatus();
+        LocalDateTime oldFinishedDate = finishedDate(userBook);
+        // Если статус меняется на FINISHED, устанавливаем дату завершения
+        if (newStatus == ReadingStatus.FINISHED && oldStatus != ReadingStatus.FINISHED) {
+            userBook.setFinishedDate(LocalDateTime.now());
+        } else if (newStatus != ReadingStatus.FINISHED) {
+            userBook.setFinishedDate(null);
+        }
+        userBook.setStatus(newStatus);
+        userBookRepository.save(userBook);
+
+        bookStatsService.applyChange(book.getId(), oldStatus, userBook.getRating(), newStatus, userBook.getRating());
+        userReadingDailyService.applyChange(user.getId(), book.getGenre(), oldFinishedDate, finishedDate(userBook));
+        shelfChanged(user, book);
+        return userBook;
+    }
+
+    // Возвращает null, если у книги нет статуса в списке пользователя
+    @Transactional
+    public UserBook rateBook(User user, Book book, int rating) {
+        UserBook userBook = userBookRepository.findByUserAndBook(user, book);
+        if (userBook == null || userBook.getStatus() == null) {
+            return null;
+        }
+
+        Integer oldRating = userBook.getRating();
+        userBook.setRating(rating);
+        userBookRepository.save(userBook);
+
+        bookStatsService.applyChange(book.getId(), userBook.getStatus(), oldRating, userBook.getStatus(), rating);
+        shelfChanged(user, book);
+        return userBook;
+    }
+
+    @Transactional
+    public boolean removeBook(User user, Book book) {
+        UserBook userBook = userBookRepository.findByUserAndBook(user, book);
+        if (userBook == null) {
+            return false;
+        }
+
+        userBookRepository.delete(userBook);
+        bookStatsService.applyChange(book.getId(), userBook.getStatus(), userBook.getRating(), null, null);
+        userReadingDailyService.applyChange(user.getId(), book.getGenre(), finishedDate(userBook), null);
+        shelfChanged(user, book);
+        return true;
+    }
+
+    @Transactional
+    public UserBook toggleFavorite(User user, Book book) {
+        // Получаем или создаем запись UserBook
+        UserBook userBook = userBookRepository.findByUserAndBook(user, book);
+        if (userBook == null) {
+            userBook = new UserBook();
+            userBook.setUser(user);
+            userBook.setBook(book);
+        }
+
+        // Переключаем статус избранного
+        userBook.setFavorite(!userBook.isFavorite());
+        userBookRepository.save(userBook);
+        shelfChanged(user, book);
+        return userBook;
+    }
+
+    // Дата, под которой запись учитывается в статистике чтения; null, если книга не прочитана
+    private static LocalDateTime finishedDate(UserBook userBook) {
+        return userBook.getStatus() == ReadingStatus.FINISHED ? userBook.getFinishedDate() : null;
+    }
+
+    private void shelfChanged(User user, Book book) {
+        recommendationChangeTracker.markUser(user.getId());
+        eventPublisher.publishEvent(new ShelfChangedEvent(user.getId(), book.getId()));
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.events.BookStatsRebuiltEvent;
+import com.example.demo.models.BookReadingStats;
+import com.example.demo.models.BookStats;
+import com.example.demo.models.ReadingStatus;
+import com.example.demo.repositories.BookStatsRepository;
+import com.example.demo.repositories.UserBookRepository;
+
+/**
+ * Поддерживает таблицу book_stats: счётчики читателей по статусам и сумму оценок.
+ * Изменения применяются дельтами в транзакции изменения полки пользователя,
+ * периодическая сверка с user_book исправляет возможное расхождение.
+ */
+@Service
+public class BookStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(BookStatsService.class);
+
+    // Книг в одной транзакции сверки
+    private static final int REBUILD_RANGE = 1000;
+
+    private final BookStatsRepository bookStatsRepository;
+    private final UserBookRepository userBookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BookStatsService(BookStatsRepository bookStatsRepository,
+                            UserBookRepository userBookRepository,
+                            TransactionTemplate transactionTemplate,
+                            ApplicationEventPublisher eventPublisher) {
+        this.bookStatsRepository = bookStatsRepository;
+        this.userBookRepository = userBookRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public BookReadingStats getStats(Long bookId) {
+        return bookStatsRepository.findById(bookId)
+                .map(BookStats::toReadingStats)
+                .orElseGet(BookReadingStats::empty);
+    }
+
+    // Вызывается внутри транзакции, изменившей запись UserBook
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyChange(Long bookId,
+                            ReadingStatus oldStatus, Integer oldRating,
+                            ReadingStatus newStatus, Integer newRating) {
+        long[] statusDelta = new long[ReadingStatus.values().length];
+        if (oldStatus != null) {
+            statusDelta[oldStatus.ordinal()]--;
+        }
+        if (newStatus != null) {
+            statusDelta[newStatus.ordinal()]++;
+        }
+        long ratingCountDelta = (newRating != null ? 1 : 0) - (oldRating != null ? 1 : 0);
+        long ratingSumDelta = (newRating != null ? newRating : 0) - (oldRating != null ? oldRating : 0);
+
+        boolean changed = ratingCountDelta != 0 || ratingSumDelta != 0;
+        for (long delta : statusDelta) {
+            changed |= delta != 0;
+        }
+        if (!changed) {
+            return;
+        }
+
+        bookStatsRepository.applyDelta(bookId,
+                statusDelta[ReadingStatus.READING.ordinal()],
+                statusDelta[ReadingStatus.FINISHED.ordinal()],
+                statusDelta[ReadingStatus.WANT_TO_READ.ordinal()],
+                statusDelta[ReadingStatus.DROPPED.ordinal()],
+                ratingCountDelta,
+                ratingSumDelta);
+    }
+
+    // Сверка счётчиков с user_book каждую ночь
+    @Scheduled(cron = "0 30 2 * * ?")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long maxBookId = Math.max(nullToZero(bookStatsRepository.findMaxBookId()),
+                nullToZero(userBookRepository.findMaxBookId()));
+        List<Long> fixed = new ArrayList<>();
+        for (long from = 0; from <= maxBookId; from += REBUILD_RANGE) {
+            long rangeFrom = from;
+            fixed.addAll(transactionTemplate.execute(status -> rebuildRange(rangeFrom, rangeFrom + REBUILD_RANGE - 1)));
+        }
+        logger.info("Rebuilt book_stats: {} rows fixed in {} ms", fixed.size(), System.currentTimeMillis() - start);
+        if (!fixed.isEmpty()) {
+            eventPublisher.publishEvent(new BookStatsRebuiltEvent(fixed));
+        }
+    }
+
+    // Первичное заполнение таблицы, если она только что создана
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (bookStatsRepository.count() == 0 && userBookRepository.count() > 0) {
+            logger.info("book_stats is empty, running initial backfill");
+            rebuild();
+        }
+    }
+
+    // Читает без блокировок и исправляет строку, только если она не изменилась после чтения;
+    // иначе её исправит следующий пересчёт. Возвращает id книг, строки которых исправлены
+    private List<Long> rebuildRange(long from, long to) {
+        Map<Long, BookStats> stored = new HashMap<>();
+        for (BookStats stats : bookStatsRepository.findByBookIdBetween(from, to)) {
+            stored.put(stats.getBookId(), stats);
+        }
+        List<Long> fixed = new ArrayList<>();
+        for (BookStats actual : bookStatsRepository.countFromShelves(from, to)) {
+            BookStats expected = stored.remove(actual.getBookId());
+            int updated = 0;
+            if (expected == null) {
+                updated = bookStatsRepository.insertIfAbsent(actual);
+            } else if (!expected.equals(actual)) {
+                updated = bookStatsRepository.updateIfUnchanged(expected, actual);
+            }
+            if (updated > 0) {
+                fixed.add(actual.getBookId());
+            }
+        }
+        // Строки книг, которых больше нет ни на одной полке
+        for (BookStats expected : stored.values()) {
+            if (bookStatsRepository.deleteIfUnchanged(expected) > 0) {
+                fixed.add(expected.getBookId());
+            }
+        }
+        return fixed;
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.demo.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.events.BookChangedEvent;
+import com.example.demo.models.Book;
+import com.example.demo.models.BookStats;
+import com.example.demo.repositories.BookRepository;
+import com.example.demo.repositories.BookStatsRepository;
+import com.example.demo.search.Suggestion;
+import com.example.demo.search.SuggestionIndex;
+import com.example.demo.search.TextNormalizer;
+
+/**
+ * Автодополнение в строке поиска. Подсказки берутся из неизменяемого {@link SuggestionIndex},
+ * запросы к БД при наборе не выполняются. Вес подсказки - число читателей книги
+ * из book_stats (для автора - суммарно по его книгам). Изменения каталога накапливаются
+ * и применяются периодической пересборкой индекса.
+ */
+@Service
+public class BookSuggestionService {
+    private static final Logger logger = LoggerFactory.getLogger(BookSuggestionService.class);
+
+    public static final int MAX_LIMIT = 20;
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final BookStatsRepository bookStatsRepository;
+
+    // bookId -> {название, автор}
+    private final Map<Long, String[]> books = new ConcurrentHashMap<>();
+    private volatile Map<Long, Integer> popularity = Map.of();
+    private volatile SuggestionIndex index;
+    private volatile boolean dirty;
+    private volatile boolean loaded;
+    // События, пришедшие во время загрузки книг: применяются поверх прочитанных пачек
+    private final List<BookChangedEvent> pending = new ArrayList<>();
+
+    public BookSuggestionService(BookRepository bookRepository, BookStatsRepository bookStatsRepository) {
+        this.bookRepository = bookRepository;
+        this.bookStatsRepository = bookStatsRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        Long lastId = null;
+        List<Book> batch;
+        do {
+            batch = bookRepository.findPageAfter(lastId, PageRequest.of(0, BUILD_BATCH_SIZE));
+            for (Book book : batch) {
+                books.put(book.getId(), new String[] {book.getTitle(), book.getAuthor()});
+            }
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == BUILD_BATCH_SIZE);
+        synchronized (pending) {
+            pending.forEach(this::apply);
+            pending.clear();
+            loaded = true;
+        }
+        popularity = loadPopularity();
+        rebuild();
+        logger.info("Built suggestion index: {} entries in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        SuggestionIndex current = index;
+        if (current == null || prefix == null) {
+            return List.of();
+        }
+        return current.suggest(prefix, Math.min(Math.max(limit, 1), MAX_LIMIT));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!loaded) {
+            synchronized (pending) {
+                if (!loaded) {
+                    pending.add(event);
+                    return;
+                }
+            }
+        }
+        apply(event);
+    }
+
+    private void apply(BookChangedEvent event) {
+        Book book = event.getBook();
+        if (event.getType() == BookChangedEvent.Type.DELETED) {
+            books.remove(book.getId());
+        } else {
+            books.put(book.getId(), new String[] {book.getTitle(), book.getAuthor()});
+        }
+        dirty = true;
+    }
+
+    // Изменения каталога попадают в подсказки с задержкой до 30 секунд
+    @Scheduled(fixedDelay = 30_000, initialDelay = 30_000)
+    public void rebuildIfDirty() {
+        if (dirty && index != null) {
+            rebuild();
+        }
+    }
+
+    // Популярность меняется медленно, обновляем её раз в 10 минут
+    @Scheduled(fixedDelay = 600_000, initialDelay = 600_000)
+    public void refreshPopularity() {
+        if (index != null) {
+            popularity = loadPopularity();
+            rebuild();
+        }
+    }
+
+    private Map<Long, Integer> loadPopularity() {
+        Map<Long, Integer> result = new HashMap<>();
+        for (BookStats stats : bookStatsRepository.findAll()) {
+            long readers = stats.getReadingCount() + stats.getFinishedCount() + stats.getPlannedCount();
+            result.put(stats.getBookId(), (int) Math.min(readers, Integer.MAX_VALUE));
+        }
+        return result;
+    }
+
+    private synchronized void rebuild() {
+        dirty = false;
+        Map<Long, Integer> weights = popularity;
+        SuggestionIndex.Builder builder = new SuggestionIndex.Builder();
+        // Один автор - одна подсказка, вес складывается из всех его книг
+        Map<String, String> authorNames = new HashMap<>();
+        Map<String, Integer> authorWeights = new HashMap<>();
+
+        books.forEach((bookId, fields) -> {
+            int weight = weights.getOrDefault(bookId, 0);
+            builder.add(fields[0], Suggestion.Type.TITLE, bookId, weight);
+            String author = fields[1];
+            if (author != null && !author.isBlank()) {
+                String key = TextNormalizer.fold(author.trim());
+                authorNames.putIfAbsent(key, author.trim());
+                authorWeights.merge(key, weight, Integer::sum);
+            }
+        });
+        authorNames.forEach((key, name) ->
+                builder.add(name, Suggestion.Type.AUTHOR, null, authorWeights.get(key)));
+
+        index = builder.build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.events.BookChangedEvent;
+import com.example.demo.events.BookContentChangedEvent;
+import com.example.demo.events.BookStatsRebuiltEvent;
+import com.example.demo.events.ShelfChangedEvent;
+import com.example.demo.events.UserProfileChangedEvent;
+import com.example.demo.repositories.QuoteRepository;
+import com.example.demo.repositories.ReviewRepository;
+
+/**
+ * Версии публичных страниц книг. Версия увеличивается после коммита любого изменения,
+ * влияющего на страницу: отзывов, цитат, оценок и статусов читателей, самой книги,
+ * профиля автора отзыва или цитаты.
+ * Используется для ETag и кэша отрисованных страниц. Last-Modified не отдаётся:
+ * с точностью до секунды он не различает два изменения в одну секунду.
+ */
+@Service
+public class BookVersionService {
+
+    // Версии сбрасываются при перезапуске, поэтому ETag включает момент старта приложения
+    private final long startedAt = System.currentTimeMillis();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    private final ReviewRepository reviewRepository;
+    private final QuoteRepository quoteRepository;
+
+    public BookVersionService(ReviewRepository reviewRepository, QuoteRepository quoteRepository) {
+        this.reviewRepository = reviewRepository;
+        this.quoteRepository = quoteRepository;
+    }
+
+    public long getVersion(Long bookId) {
+        return versions.getOrDefault(bookId, 0L);
+    }
+
+    public String etag(Long bookId, long version, String variant) {
+        return "\"b" + bookId + "-" + Long.toString(startedAt, 36) + "-" + version + "-" + variant + "\"";
+    }
+
+    public void bump(Long bookId) {
+        if (bookId == null) {
+            return;
+        }
+        versions.merge(bookId, 1L, Long::sum);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShelfChanged(ShelfChangedEvent event) {
+        bump(event.getBookId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookContentChanged(BookContentChangedEvent event) {
+        bump(event.getBookId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        bump(event.getBook().getId());
+    }
+
+    // Имя и аватар пользователя показаны рядом с его отзывами и цитатами
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserProfileChanged(UserProfileChangedEvent event) {
+        reviewRepository.findBookIdsByUserId(event.getUserId()).forEach(this::bump);
+        quoteRepository.findBookIdsByUserId(event.getUserId()).forEach(this::bump);
+    }
+
+    // Ночной пересчёт меняет счётчики читателей, показанные на странице
+    @EventListener
+    public void onBookStatsRebuilt(BookStatsRebuiltEvent event) {
+        event.getBookIds().forEach(this::bump);
+    }
+}
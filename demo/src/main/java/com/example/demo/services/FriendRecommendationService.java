@@ -0,0 +1,85 @@
+package com.example.demo.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.cache.LruCache;
+import com.example.demo.events.FriendshipChangedEvent;
+import com.example.demo.events.ShelfChangedEvent;
+import com.example.demo.models.Book;
+import com.example.demo.models.FriendReading;
+import com.example.demo.models.FriendRecommendation;
+import com.example.demo.models.User;
+import com.example.demo.repositories.BookRepository;
+import com.example.demo.repositories.FriendshipRepository;
+import com.example.demo.repositories.UserBookRepository;
+
+/**
+ * Рекомендации «друзья читают»: книги, которые друзья пользователя дочитали и оценили
+ * не ниже MIN_RATING, по числу таких друзей. Список друзей и агрегат по их полкам -
+ * по одному запросу, они кэшируются по пользователю и сбрасываются при изменении его полки,
+ * полки любого из друзей или списка друзей. Книги загружаются на каждый запрос, чтобы
+ * правки и удаление книг были видны сразу.
+ */
+@Service
+public class FriendRecommendationService {
+    private static final int MAX_CACHED_USERS = 10_000;
+    private static final int MIN_RATING = 7;
+    private static final int LIMIT = 12;
+
+    private final FriendshipRepository friendshipRepository;
+    private final UserBookRepository userBookRepository;
+    private final BookRepository bookRepository;
+    private final LruCache<Long, List<FriendReading>> cache = new LruCache<>(MAX_CACHED_USERS, 0);
+
+    public FriendRecommendationService(FriendshipRepository friendshipRepository,
+                                       UserBookRepository userBookRepository,
+                                       BookRepository bookRepository) {
+        this.friendshipRepository = friendshipRepository;
+        this.userBookRepository = userBookRepository;
+        this.bookRepository = bookRepository;
+    }
+
+    public List<FriendRecommendation> getRecommendations(User user) {
+        List<FriendReading> readings = cache.get(user.getId(), this::load);
+        if (readings.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Book> books = bookRepository.findAllById(
+                        readings.stream().map(FriendReading::getBookId).toList()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return readings.stream()
+                .filter(reading -> books.containsKey(reading.getBookId()))
+                .map(reading -> new FriendRecommendation(books.get(reading.getBookId()), reading))
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShelfChanged(ShelfChangedEvent event) {
+        cache.invalidate(event.getUserId());
+        // Полка учтена в рекомендациях всех друзей пользователя
+        for (Long friendId : friendshipRepository.findFriendIds(event.getUserId())) {
+            cache.invalidate(friendId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        cache.invalidate(event.getRequesterId());
+        cache.invalidate(event.getReceiverId());
+    }
+
+    private List<FriendReading> load(Long userId) {
+        List<Long> friendIds = friendshipRepository.findFriendIds(userId);
+        if (friendIds.isEmpty()) {
+            return List.of();
+        }
+        return userBookRepository.findFriendReadings(userId, friendIds, MIN_RATING, PageRequest.of(0, LIMIT));
+    }
+}
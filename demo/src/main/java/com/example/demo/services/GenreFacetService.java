@@ -0,0 +1,102 @@
+package com.example.demo.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.events.BookChangedEvent;
+import com.example.demo.models.GenreFacet;
+import com.example.demo.repositories.BookRepository;
+
+/**
+ * Хранит в памяти список жанров каталога и количество книг в каждом.
+ * Загружается одним GROUP BY при первом обращении, дальше обновляется
+ * по событиям {@link BookChangedEvent} без обращения к БД.
+ */
+@Service
+public class GenreFacetService {
+    private static final Logger logger = LoggerFactory.getLogger(GenreFacetService.class);
+
+    private final BookRepository bookRepository;
+
+    private final Map<String, Long> counts = new HashMap<>();
+    private volatile List<GenreFacet> snapshot;
+
+    public GenreFacetService(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    public List<GenreFacet> getFacets() {
+        List<GenreFacet> facets = snapshot;
+        if (facets == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                facets = snapshot;
+            }
+        }
+        return facets;
+    }
+
+    // Полная перезагрузка из БД (при старте или для сверки)
+    public synchronized void reload() {
+        counts.clear();
+        for (GenreFacet facet : bookRepository.countBooksByGenre()) {
+            counts.put(facet.getGenre(), facet.getCount());
+        }
+        rebuildSnapshot();
+        logger.info("Loaded {} genre facets", counts.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookChanged(BookChangedEvent event) {
+        if (snapshot == null) {
+            // Индекс ещё не загружен, актуальные данные будут прочитаны при первом обращении
+            return;
+        }
+        String previous = event.getPreviousGenre();
+        String current = event.getBook().getGenre();
+        switch (event.getType()) {
+            case CREATED:
+                increment(current, 1);
+                break;
+            case UPDATED:
+                if (Objects.equals(previous, current)) {
+                    return;
+                }
+                increment(previous, -1);
+                increment(current, 1);
+                break;
+            case DELETED:
+                increment(previous, -1);
+                break;
+        }
+        rebuildSnapshot();
+    }
+
+    private void increment(String genre, long delta) {
+        if (genre == null || genre.isEmpty()) {
+            return;
+        }
+        counts.compute(genre, (key, count) -> {
+            long updated = (count != null ? count : 0L) + delta;
+            return updated > 0 ? updated : null;
+        });
+    }
+
+    private void rebuildSnapshot() {
+        List<GenreFacet> facets = new ArrayList<>(counts.size());
+        counts.forEach((genre, count) -> facets.add(new GenreFacet(genre, count)));
+        facets.sort(Comparator.comparing(GenreFacet::getGenre));
+        snapshot = List.copyOf(facets);
+    }
+}
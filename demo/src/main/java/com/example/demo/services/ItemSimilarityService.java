@@ -0,0 +1,117 @@
+package com.example.demo.services;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.events.ShelfChangedEvent;
+import com.example.demo.models.ReadingInteraction;
+import com.example.demo.models.ReadingStatus;
+import com.example.demo.recommendation.ItemNeighbours;
+import com.example.demo.recommendation.ItemSimilarityBuilder;
+import com.example.demo.repositories.UserBookRepository;
+
+/**
+ * Модель сходства книг по читателям (item-item). Учитываются записи FINISHED и READING,
+ * вес записи - оценка, а без неё - фиксированное значение по статусу.
+ * Модель собирается целиком: при старте, каждую ночь перед пересчётом рекомендаций
+ * и раз в час, если с прошлой сборки менялись полки. Инкрементальной сборки нет:
+ * изменение одной полки сдвигает косинусы всех пар её книг, и сохранять их согласованными
+ * без хранения векторов в памяти нельзя, поэтому днём модель отстаёт от полок не больше чем на час.
+ */
+@Service
+public class ItemSimilarityService {
+    private static final Logger logger = LoggerFactory.getLogger(ItemSimilarityService.class);
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+    private static final List<ReadingStatus> STATUSES = List.of(ReadingStatus.FINISHED, ReadingStatus.READING);
+
+    private final UserBookRepository userBookRepository;
+    private final int neighbours;
+    private final int parallelism;
+
+    private volatile ItemNeighbours model;
+    private final AtomicBoolean changed = new AtomicBoolean();
+
+    public ItemSimilarityService(UserBookRepository userBookRepository,
+                                 @Value("${recommendations.similarity.neighbours:30}") int neighbours,
+                                 @Value("${recommendations.similarity.parallelism:0}") int parallelism) {
+        this.userBookRepository = userBookRepository;
+        this.neighbours = Math.max(neighbours, 1);
+        // 0 - по числу ядер
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    // Вес записи полки: оценка 1-10 переводится в (0, 1], без оценки - по статусу
+    static float interactionWeight(ReadingStatus status, Integer rating) {
+        if (status != ReadingStatus.FINISHED && status != ReadingStatus.READING) {
+            return 0f;
+        }
+        if (rating != null && rating > 0) {
+            return Math.min(rating, 10) / 10f;
+        }
+        return status == ReadingStatus.FINISHED ? 0.5f : 0.3f;
+    }
+
+    // null, пока модель не построена
+    public ItemNeighbours getModel() {
+        return model;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    // Полная пересборка до ночного пересчёта рекомендаций
+    @Scheduled(cron = "0 45 2 * * ?")
+    public synchronized void rebuild() {
+        changed.set(false);
+        build();
+    }
+
+    // Полная пересборка в течение дня, только если полки менялись
+    @Scheduled(fixedDelay = 3_600_000, initialDelay = 3_600_000)
+    public synchronized void rebuildIfChanged() {
+        if (changed.getAndSet(false)) {
+            build();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShelfChanged(ShelfChangedEvent event) {
+        changed.set(true);
+    }
+
+    private void build() {
+        long start = System.currentTimeMillis();
+        ItemSimilarityBuilder builder = new ItemSimilarityBuilder();
+        Long lastId = null;
+        List<ReadingInteraction> batch;
+        do {
+            batch = userBookRepository.findInteractionsAfter(STATUSES, lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (ReadingInteraction interaction : batch) {
+                builder.add(interaction.getUserId(), interaction.getBookId(),
+                        interactionWeight(interaction.getStatus(), interaction.getRating()));
+            }
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        ItemNeighbours built = builder.build(neighbours, parallelism);
+        model = built;
+        logger.info("Built item similarity model: {} interactions, {} books, {} neighbour links, ~{} KB, {} ms",
+                builder.size(), built.bookCount(),
+                built.neighbourCount(), built.estimatedBytes() / 1024, System.currentTimeMillis() - start);
+    }
+}
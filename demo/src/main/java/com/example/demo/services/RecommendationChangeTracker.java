@@ -0,0 +1,76 @@
+package com.example.demo.services;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.repositories.RecommendationDirtyUserRepository;
+import com.example.demo.repositories.RecommendationRatingSnapshotRepository;
+
+/**
+ * Журнал пользователей, чьи рекомендации нужно пересчитать. Пользователь попадает в журнал
+ * при любом изменении своей полки, а перед ночным пересчётом - если в жанрах прочитанных
+ * им книг средняя оценка какой-либо книги сдвинулась не меньше порога.
+ */
+@Service
+public class RecommendationChangeTracker {
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationChangeTracker.class);
+
+    private final RecommendationDirtyUserRepository dirtyUserRepository;
+    private final RecommendationRatingSnapshotRepository ratingSnapshotRepository;
+    private final double ratingShiftThreshold;
+
+    public RecommendationChangeTracker(RecommendationDirtyUserRepository dirtyUserRepository,
+                                       RecommendationRatingSnapshotRepository ratingSnapshotRepository,
+                                       @Value("${recommendations.rating-shift-threshold:0.5}") double ratingShiftThreshold) {
+        this.dirtyUserRepository = dirtyUserRepository;
+        this.ratingSnapshotRepository = ratingSnapshotRepository;
+        this.ratingShiftThreshold = ratingShiftThreshold;
+    }
+
+    // Вызывается внутри транзакции, изменившей полку пользователя
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void markUser(Long userId) {
+        dirtyUserRepository.markDirty(userId, LocalDateTime.now());
+    }
+
+    /**
+     * Отмечает пользователей, затронутых сдвигом оценок, и запоминает текущие оценки.
+     * Возвращает момент начала пересчёта: отметки не позже него снимаются после обработки.
+     */
+    @Transactional
+    public LocalDateTime prepareRun() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> genres = ratingSnapshotRepository.findGenresWithRatingShift(ratingShiftThreshold);
+        if (!genres.isEmpty()) {
+            int marked = dirtyUserRepository.markReadersOfGenres(genres, now);
+            logger.info("Rating shift in {} genres, marked {} users for recommendation refresh", genres.size(), marked);
+        }
+        ratingSnapshotRepository.deleteAllSnapshots();
+        ratingSnapshotRepository.snapshotAll();
+        return now;
+    }
+
+    public List<Long> findDirtyUserIds(Long afterId, int limit) {
+        return dirtyUserRepository.findUserIdsAfter(afterId, PageRequest.of(0, limit));
+    }
+
+    public long countDirtyUsers() {
+        return dirtyUserRepository.count();
+    }
+
+    @Transactional
+    public void completeUsers(Collection<Long> userIds, LocalDateTime since) {
+        if (!userIds.isEmpty()) {
+            dirtyUserRepository.deleteProcessed(userIds, since);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.cache.LruCache;
+import com.example.demo.models.RecommendationJob;
+import com.example.demo.models.RecommendationJobStatus;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Пересчёт рекомендаций по кнопке «Обновить» в фоне. Повторные запросы пользователя, пока
+ * его задача в очереди или выполняется, а также в течение cooldown после её завершения,
+ * возвращают ту же задачу, а не запускают вычисление заново. Пул и очередь ограничены,
+ * поэтому поток запросов не может занять все потоки Tomcat и соединения с БД;
+ * при переполненной очереди {@link #submit} бросает RejectedExecutionException.
+ */
+@Service
+public class RecommendationJobService {
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationJobService.class);
+
+    private static final int MAX_TRACKED_JOBS = 10_000;
+
+    private final RecommendationService recommendationService;
+    private final Duration cooldown;
+    private final ThreadPoolExecutor executor;
+
+    // Последняя задача пользователя и задачи по id для опроса статуса
+    private final LruCache<Long, RecommendationJob> latestByUser = new LruCache<>(MAX_TRACKED_JOBS, 0);
+    private final LruCache<String, RecommendationJob> jobs = new LruCache<>(MAX_TRACKED_JOBS, 0);
+
+    public RecommendationJobService(RecommendationService recommendationService,
+                                    @Value("${recommendations.on-demand.parallelism:2}") int parallelism,
+                                    @Value("${recommendations.on-demand.queue-capacity:100}") int queueCapacity,
+                                    @Value("${recommendations.on-demand.cooldown-seconds:60}") long cooldownSeconds) {
+        this.recommendationService = recommendationService;
+        this.cooldown = Duration.ofSeconds(Math.max(cooldownSeconds, 0));
+        int threads = Math.max(parallelism, 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+                runnable -> new Thread(runnable, "recommendation-job-" + threadNumber.incrementAndGet()));
+    }
+
+    public synchronized RecommendationJob submit(Long userId) {
+        RecommendationJob latest = latestByUser.getIfPresent(userId);
+        if (latest != null && (!latest.isFinished()
+                || latest.getFinishedAt().plus(cooldown).isAfter(LocalDateTime.now()))) {
+            return latest;
+        }
+
+        RecommendationJob job = new RecommendationJob(UUID.randomUUID().toString(), userId, LocalDateTime.now());
+        executor.execute(() -> run(job));
+        latestByUser.put(userId, job);
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    // null, если задачи нет или она принадлежит другому пользователю
+    public RecommendationJob getJob(String jobId, Long userId) {
+        RecommendationJob job = jobs.getIfPresent(jobId);
+        return job != null && job.getUserId().equals(userId) ? job : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(RecommendationJob job) {
+        job.start();
+        try {
+            recommendationService.generateRecommendations(job.getUserId());
+            job.finish(RecommendationJobStatus.COMPLETED, LocalDateTime.now());
+        } catch (Exception e) {
+            logger.error("Error generating recommendations for user {}", job.getUserId(), e);
+            job.finish(RecommendationJobStatus.FAILED, LocalDateTime.now());
+        }
+    }
+}
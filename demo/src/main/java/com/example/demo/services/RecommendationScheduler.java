@@ -1,48 +1,376 @@
 package com.example.demo.services;
 
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import com.example.demo.models.User;
-import com.example.demo.repositories.UserRepository;
+import com.example.demo.models.RecommendationRun;
+import com.example.demo.models.RecommendationRunProgress;
+import com.example.demo.models.RecommendationRunStatus;
+import com.example.demo.recommendation.LatencyHistogram;
+import com.example.demo.repositories.RecommendationRunRepository;
 
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ночной пересчёт рекомендаций для пользователей из журнала {@link RecommendationChangeTracker}:
+ * объём работы зависит от активности, а не от общего числа пользователей.
+ * Пользователи разбиваются на диапазоны id по chunkSize,
+ * диапазоны обрабатываются параллельно на пуле из parallelism потоков, каждый пользователь -
+ * в своей короткой транзакции. Параллелизм не должен превышать размер пула соединений с БД.
+ * Состояние запуска и контрольная точка хранятся в recommendation_run: если приложение
+ * остановилось посреди запуска, он остаётся RUNNING и продолжается после старта с последней
+ * контрольной точки. Счётчики сохраняются только по диапазонам, вошедшим в контрольную точку,
+ * поэтому после продолжения пользователи не учитываются дважды.
+ *
+ * Из базы читаются только id, сущности живут в транзакции одного пользователя. Одновременно
+ * в памяти не больше parallelism * 2 диапазонов (отправленных, но ещё не попавших
+ * в контрольную точку), поэтому расход памяти не зависит от числа пользователей.
+ */
 @Service
 public class RecommendationScheduler {
     private static final Logger logger = LoggerFactory.getLogger(RecommendationScheduler.class);
-    
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
     private final RecommendationService recommendationService;
-    private final UserRepository userRepository;
+    private final RecommendationChangeTracker changeTracker;
+    private final RecommendationRunRepository runRepository;
+    private final int parallelism;
+    private final int chunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Запуск идёт в своём потоке, чтобы не занимать поток планировщика, общий для всех @Scheduled
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recommendation-run");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile RunState current;
+    private volatile boolean stopping;
 
     public RecommendationScheduler(RecommendationService recommendationService,
-                                 UserRepository userRepository) {
+                                 RecommendationChangeTracker changeTracker,
+                                 RecommendationRunRepository runRepository,
+                                 @Value("${recommendations.parallelism:4}") int parallelism,
+                                 @Value("${recommendations.chunk-size:100}") int chunkSize) {
         this.recommendationService = recommendationService;
-        this.userRepository = userRepository;
+        this.changeTracker = changeTracker;
+        this.runRepository = runRepository;
+        this.parallelism = Math.max(parallelism, 1);
+        this.chunkSize = Math.max(chunkSize, 1);
     }
 
-    // Обновление рекомендаций каждый день в 3 часа ночи
+    // Обновление рекомендаций каждый день в 3 часа ночи: запуск передаётся в свой поток, метод сразу возвращается
     @Scheduled(cron = "0 0 3 * * ?")
-    @Transactional
     public void updateRecommendations() {
-        logger.info("Starting scheduled recommendation update");
+        if (running.get()) {
+            logger.warn("Recommendation update is already running, skipping");
+            return;
+        }
+        runner.execute(this::runUpdate);
+    }
+
+    // Сам запуск, выполняется в вызывающем потоке
+    public void runUpdate() {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Recommendation update is already running, skipping");
+            return;
+        }
         try {
-            List<User> users = userRepository.findAll();
-            for (User user : users) {
-                try {
-                    recommendationService.generateRecommendations(user);
-                    logger.info("Generated recommendations for user: {}", user.getUsername());
-                } catch (Exception e) {
-                    logger.error("Error generating recommendations for user {}: {}", 
-                               user.getUsername(), e.getMessage());
+            // Незавершённый запуск продолжаем, а не начинаем заново
+            RecommendationRun run = runRepository.findFirstByStatusOrderByIdDesc(RecommendationRunStatus.RUNNING)
+                    .orElseGet(this::startRun);
+            execute(run);
+        } catch (Exception e) {
+            logger.error("Error in recommendation update scheduler", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Продолжение запуска, прерванного остановкой приложения
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        if (runRepository.findFirstByStatusOrderByIdDesc(RecommendationRunStatus.RUNNING).isPresent()) {
+            logger.info("Found interrupted recommendation run, resuming");
+            updateRecommendations();
+        }
+    }
+
+    // Прерывает запуск и ждёт сохранения контрольной точки, пока соединения с БД ещё открыты
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stopping = true;
+        runner.shutdownNow();
+        if (!runner.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            logger.warn("Recommendation run did not stop in {} s, resuming from the last saved checkpoint",
+                    SHUTDOWN_TIMEOUT_SECONDS);
+        }
+    }
+
+    // Ход текущего или последнего запуска
+    public Optional<RecommendationRunProgress> getProgress() {
+        RunState state = current;
+        if (state != null) {
+            return Optional.of(state.progress());
+        }
+        return runRepository.findFirstByOrderByIdDesc().map(run -> new RecommendationRunProgress(run,
+                run.getProcessedUsers(), run.getFailedUsers(), run.getLastUserId(),
+                run.getDurationMillis() > 0 ? run.getProcessedUsers() * 1000.0 / run.getDurationMillis() : 0,
+                null, 0));
+    }
+
+    private RecommendationRun startRun() {
+        LocalDateTime since = changeTracker.prepareRun();
+        RecommendationRun run = new RecommendationRun();
+        run.setStatus(RecommendationRunStatus.RUNNING);
+        run.setStartedAt(LocalDateTime.now());
+        run.setSince(since);
+        run.setTotalUsers(changeTracker.countDirtyUsers());
+        return runRepository.save(run);
+    }
+
+    private void execute(RecommendationRun run) {
+        RunState state = new RunState(run);
+        current = state;
+        logger.info("Starting recommendation run {}: {} users, parallelism {}, chunk size {}{}",
+                run.getId(), run.getTotalUsers(), parallelism, chunkSize,
+                run.getLastUserId() != null ? ", resuming after user " + run.getLastUserId() : "");
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        RecommendationRunStatus result = RecommendationRunStatus.COMPLETED;
+        boolean interrupted = false;
+        try {
+            Long lastId = run.getLastUserId();
+            List<Long> chunk;
+            do {
+                chunk = changeTracker.findDirtyUserIds(lastId, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
                 }
+                lastId = chunk.get(chunk.size() - 1);
+                Chunk submitted = state.submit(chunk);
+                executor.execute(() -> processChunk(state, submitted));
+            } while (chunk.size() == chunkSize);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } catch (Exception e) {
+            if (stopping) {
+                interrupted = true;
+            } else {
+                logger.error("Error in recommendation run {}", run.getId(), e);
+                state.recordError(e);
+                result = RecommendationRunStatus.FAILED;
             }
-            logger.info("Completed scheduled recommendation update");
+        } finally {
+            if (interrupted || stopping) {
+                executor.shutdownNow();
+            } else {
+                executor.shutdown();
+            }
+            interrupted |= awaitTermination(executor);
+        }
+
+        state.persist();
+        current = null;
+        // Остановка приложения: запуск остаётся RUNNING и продолжится с контрольной точки
+        if (interrupted || stopping) {
+            Thread.currentThread().interrupt();
+            logger.info("Recommendation run {} interrupted, checkpoint at user {}", run.getId(), state.checkpoint);
+            return;
+        }
+        long elapsed = state.elapsedMillis();
+        runRepository.finish(run.getId(), result, LocalDateTime.now(), run.getDurationMillis() + elapsed);
+        RecommendationRunProgress progress = state.progress();
+        logger.info("Finished recommendation run {} ({}): {} users, {} failed, {} ms, {} users/s, p95 {} ms per user",
+                run.getId(), result, progress.getProcessedUsers(), progress.getFailedUsers(), elapsed,
+                String.format("%.1f", progress.getUsersPerSecond()), progress.getP95UserMillis());
+    }
+
+    private void processChunk(RunState state, Chunk chunk) {
+        List<Long> completed = new ArrayList<>(chunk.userIds.size());
+        for (Long userId : chunk.userIds) {
+            // Прерванный диапазон не попадает в контрольную точку и будет обработан заново
+            if (stopping || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            try {
+                recommendationService.generateRecommendations(userId);
+                completed.add(userId);
+                state.userProcessed(chunk, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                // Ошибка из-за прерывания при остановке - не ошибка пользователя
+                if (stopping || Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                state.userFailed(chunk, System.currentTimeMillis() - start, e);
+                logger.error("Error generating recommendations for user {}", userId, e);
+            }
+        }
+        // Пользователи с ошибкой остаются в журнале и будут обработаны в следующий раз
+        try {
+            changeTracker.completeUsers(completed, state.run.getSince());
         } catch (Exception e) {
-            logger.error("Error in recommendation update scheduler: {}", e.getMessage());
+            logger.error("Error clearing recommendation change log", e);
+        } finally {
+            logger.debug("Generated recommendations for users {}..{}", chunk.userIds.get(0), chunk.lastUserId);
+            state.chunkDone(chunk);
+        }
+    }
+
+    // Ждёт завершения пула; true, если ожидание прервано остановкой приложения
+    private boolean awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    return interrupted;
+                }
+                logger.info("Recommendation update still running");
+            } catch (InterruptedException e) {
+                interrupted = true;
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static final class Chunk {
+        List<Long> userIds;
+        final long lastUserId;
+        boolean done;
+        // Счётчики диапазона, пишет только обрабатывающий его поток
+        long processed;
+        long failed;
+        long userMillis;
+
+        Chunk(List<Long> userIds) {
+            this.userIds = userIds;
+            this.lastUserId = userIds.get(userIds.size() - 1);
+        }
+    }
+
+    // Счётчики и контрольная точка запуска; изменяются потоками пула под блокировкой
+    private final class RunState {
+        final RecommendationRun run;
+        final long startNanos = System.nanoTime();
+        final long processedBefore;
+        final LatencyHistogram latencies = new LatencyHistogram();
+        // Диапазоны в порядке отправки: контрольная точка сдвигается только по непрерывному префиксу готовых.
+        // Разрешение освобождается, когда диапазон уходит в контрольную точку, а не когда он обработан:
+        // иначе за одним медленным диапазоном копились бы готовые
+        final Deque<Chunk> pending = new ArrayDeque<>();
+        final Semaphore window = new Semaphore(parallelism * 2);
+        Long checkpoint;
+        // Все обработанные пользователи, для хода запуска
+        long processed;
+        long failed;
+        long userMillis;
+        // Только диапазоны до контрольной точки, эти значения сохраняются в recommendation_run
+        long checkpointProcessed;
+        long checkpointFailed;
+        long checkpointUserMillis;
+        String lastError;
+
+        RunState(RecommendationRun run) {
+            this.run = run;
+            this.checkpoint = run.getLastUserId();
+            this.processed = run.getProcessedUsers();
+            this.failed = run.getFailedUsers();
+            this.userMillis = run.getUserMillis();
+            this.checkpointProcessed = processed;
+            this.checkpointFailed = failed;
+            this.checkpointUserMillis = userMillis;
+            this.lastError = run.getLastError();
+            this.processedBefore = processed + failed;
+        }
+
+        Chunk submit(List<Long> userIds) throws InterruptedException {
+            window.acquire();
+            Chunk chunk = new Chunk(userIds);
+            synchronized (this) {
+                pending.addLast(chunk);
+            }
+            return chunk;
+        }
+
+        synchronized void userProcessed(Chunk chunk, long millis) {
+            chunk.processed++;
+            chunk.userMillis += millis;
+            processed++;
+            userMillis += millis;
+            latencies.record(millis);
+        }
+
+        synchronized void userFailed(Chunk chunk, long millis, Exception e) {
+            chunk.failed++;
+            chunk.userMillis += millis;
+            failed++;
+            userMillis += millis;
+            latencies.record(millis);
+            recordError(e);
+        }
+
+        synchronized void recordError(Exception e) {
+            String message = e.getClass().getSimpleName() + ": " + e.getMessage();
+            lastError = message.length() > 1000 ? message.substring(0, 1000) : message;
+        }
+
+        synchronized void chunkDone(Chunk chunk) {
+            chunk.done = true;
+            // id уже не нужны, для контрольной точки достаточно последнего
+            chunk.userIds = null;
+            int advanced = 0;
+            while (!pending.isEmpty() && pending.peekFirst().done) {
+                Chunk first = pending.pollFirst();
+                checkpoint = first.lastUserId;
+                checkpointProcessed += first.processed;
+                checkpointFailed += first.failed;
+                checkpointUserMillis += first.userMillis;
+                advanced++;
+            }
+            if (advanced > 0) {
+                persist();
+                window.release(advanced);
+            }
+        }
+
+        synchronized void persist() {
+            try {
+                runRepository.updateProgress(run.getId(), checkpoint, checkpointProcessed, checkpointFailed,
+                        checkpointUserMillis, lastError);
+            } catch (Exception e) {
+                logger.error("Error saving recommendation run checkpoint", e);
+            }
+        }
+
+        long elapsedMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        synchronized RecommendationRunProgress progress() {
+            long elapsed = Math.max(elapsedMillis(), 1);
+            double rate = (processed + failed - processedBefore) * 1000.0 / elapsed;
+            long remaining = Math.max(run.getTotalUsers() - processed - failed, 0);
+            Long eta = rate > 0 ? Math.round(remaining / rate) : null;
+            return new RecommendationRunProgress(run, processed, failed, checkpoint, rate, eta,
+                    latencies.percentile(0.95));
         }
     }
-} 
\ No newline at end of file
+}
@@ -2,118 +2,212 @@ package com.example.demo.services;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import com.example.demo.models.Book;
+import com.example.demo.cache.LruCache;
+import com.example.demo.events.BookChangedEvent;
+import com.example.demo.events.RecommendationsChangedEvent;
+import com.example.demo.events.ShelfChangedEvent;
+import com.example.demo.models.BookGenre;
 import com.example.demo.models.BookRecommendation;
-import com.example.demo.models.ReadingStatus;
+import com.example.demo.models.GenreFacet;
+import com.example.demo.models.RecommendedBook;
+import com.example.demo.models.ShelfEntry;
 import com.example.demo.models.User;
+import com.example.demo.recommendation.BookRatings;
+import com.example.demo.recommendation.ItemNeighbours;
+import com.example.demo.recommendation.LongDoubleMap;
+import com.example.demo.recommendation.TopK;
 import com.example.demo.repositories.BookRecommendationRepository;
 import com.example.demo.repositories.BookRepository;
+import com.example.demo.repositories.BookStatsRepository;
 import com.example.demo.repositories.UserBookRepository;
+import com.example.demo.repositories.UserRepository;
 
 @Service
 public class RecommendationService {
+    private static final int GENRE_BATCH_SIZE = 20;
+    private static final long RATINGS_TTL_MILLIS = 60_000;
+    private static final int PAGE_SIZE = 24;
+    private static final int MAX_CACHED_USERS = 10_000;
+    // Дальше первых страниц почти не листают, их запрашиваем из БД без кэша
+    private static final int MAX_CACHED_PAGES = 3;
+    // Максимальный вклад одной похожей книги, сопоставим с вкладом средней оценки
+    private static final double SIMILARITY_WEIGHT = 4.0;
+
     private final BookRecommendationRepository recommendationRepository;
     private final UserBookRepository userBookRepository;
     private final BookRepository bookRepository;
+    private final BookStatsRepository bookStatsRepository;
+    private final UserRepository userRepository;
+    private final ItemSimilarityService itemSimilarityService;
+    private final int maxPerUser;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LruCache<Long, Map<Integer, Page<RecommendedBook>>> cache =
+            new LruCache<>(MAX_CACHED_USERS, 0);
+
+    private volatile BookRatings ratings;
+    private volatile long ratingsLoadedAt;
 
     public RecommendationService(
             BookRecommendationRepository recommendationRepository,
             UserBookRepository userBookRepository,
-            BookRepository bookRepository) {
+            BookRepository bookRepository,
+            BookStatsRepository bookStatsRepository,
+            UserRepository userRepository,
+            ItemSimilarityService itemSimilarityService,
+            @Value("${recommendations.max-per-user:50}") int maxPerUser,
+            ApplicationEventPublisher eventPublisher) {
         this.recommendationRepository = recommendationRepository;
         this.userBookRepository = userBookRepository;
         this.bookRepository = bookRepository;
+        this.bookStatsRepository = bookStatsRepository;
+        this.userRepository = userRepository;
+        this.itemSimilarityService = itemSimilarityService;
+        this.maxPerUser = Math.max(maxPerUser, 1);
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Первые MAX_CACHED_PAGES страниц кэшируются по пользователю и сбрасываются при изменении
+    // его полки или рекомендаций. Номер за последней страницей по закэшированной первой
+    // отдаёт пустую страницу без запроса к БД
+    public Page<RecommendedBook> getRecommendationsForUser(User user, int page) {
+        Map<Integer, Page<RecommendedBook>> pages = cache.get(user.getId(), userId -> new ConcurrentHashMap<>());
+        Page<RecommendedBook> first = pages.get(0);
+        if (first != null && page > 0 && page >= first.getTotalPages()) {
+            return new PageImpl<>(List.of(), PageRequest.of(page, PAGE_SIZE), first.getTotalElements());
+        }
+        if (page >= MAX_CACHED_PAGES) {
+            return recommendationRepository.findUnshelvedByUserId(user.getId(), PageRequest.of(page, PAGE_SIZE));
+        }
+        return pages.computeIfAbsent(page,
+                p -> recommendationRepository.findUnshelvedByUserId(user.getId(), PageRequest.of(p, PAGE_SIZE)));
     }
 
-    public List<BookRecommendation> getRecommendationsForUser(User user) {
-        // Получаем все книги пользователя
-        List<Book> userBooks = userBookRepository.findByUser(user)
-                .stream()
-                .map(ub -> ub.getBook())
-                .collect(Collectors.toList());
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShelfChanged(ShelfChangedEvent event) {
+        cache.invalidate(event.getUserId());
+    }
 
-        // Получаем все рекомендации
-        List<BookRecommendation> allRecommendations = recommendationRepository.findByUserOrderByScoreDesc(user);
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecommendationsChanged(RecommendationsChangedEvent event) {
+        cache.invalidate(event.getUserId());
+    }
+
+    // В страницах лежат название, автор и обложка: изменённая или удалённая книга может быть
+    // у любого пользователя, а правки каталога редки, поэтому сбрасываем кэш целиком
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.getType() != BookChangedEvent.Type.CREATED) {
+            cache.invalidateAll();
+        }
+    }
 
-        // Фильтруем рекомендации, оставляя только те книги, которых нет в списках пользователя
-        return allRecommendations.stream()
-                .filter(recommendation -> !userBooks.contains(recommendation.getBook()))
-                .collect(Collectors.toList());
+    // Для фоновых задач: пользователь не загружается, нужен только его id
+    @Transactional
+    public void generateRecommendations(Long userId) {
+        generateRecommendations(userRepository.getReferenceById(userId));
     }
 
     @Transactional
     public void generateRecommendations(User user) {
-        // Получаем все прочитанные книги пользователя
-        List<Book> readBooks = userBookRepository.findByUserAndStatus(user, ReadingStatus.FINISHED)
-                .stream()
-                .map(ub -> ub.getBook())
-                .collect(Collectors.toList());
-
-        // Получаем все книги пользователя
-        List<Book> userBooks = userBookRepository.findByUser(user)
-                .stream()
-                .map(ub -> ub.getBook())
-                .collect(Collectors.toList());
-
-        // Получаем жанры прочитанных книг
+        // Жанры прочитанных книг с количеством книг в каждом
         Map<String, Integer> genreCounts = new HashMap<>();
-        for (Book book : readBooks) {
-            if (book.getGenre() != null && !book.getGenre().isEmpty()) {
-                genreCounts.merge(book.getGenre(), 1, Integer::sum);
+        for (GenreFacet facet : userBookRepository.countFinishedByGenre(user.getId())) {
+            genreCounts.put(facet.getGenre(), (int) facet.getCount());
+        }
+
+        // Книги пользователя (по возрастанию id) и веса прочитанных/читаемых для item-item модели
+        List<ShelfEntry> shelf = userBookRepository.findShelfEntries(user.getId());
+        long[] userBookIds = new long[shelf.size()];
+        for (int i = 0; i < shelf.size(); i++) {
+            userBookIds[i] = shelf.get(i).getBookId();
+        }
+        BookRatings ratings = getRatings();
+
+        // Вклад жанра: кандидатов загружаем пачками жанров
+        // 60% веса отдается жанру, 40% - оценке
+        LongDoubleMap scores = new LongDoubleMap(256);
+        List<String> genres = new ArrayList<>(genreCounts.keySet());
+        for (int from = 0; from < genres.size(); from += GENRE_BATCH_SIZE) {
+            List<String> batch = genres.subList(from, Math.min(from + GENRE_BATCH_SIZE, genres.size()));
+            for (BookGenre candidate : bookRepository.findIdsByGenreIn(batch)) {
+                double genreScore = genreCounts.get(candidate.getGenre()) * 0.8;
+                scores.add(candidate.getBookId(), genreScore);
             }
         }
 
-        // Удаляем старые рекомендации
-        recommendationRepository.deleteByUser(user);
-
-        // Генерируем новые рекомендации
-        List<BookRecommendation> recommendations = new ArrayList<>();
-        for (Map.Entry<String, Integer> entry : genreCounts.entrySet()) {
-            String genre = entry.getKey();
-            int count = entry.getValue();
-            
-            // Находим книги этого жанра, которых нет в списках пользователя
-            List<Book> genreBooks = bookRepository.findByGenre(genre);
-            for (Book book : genreBooks) {
-                if (!userBooks.contains(book)) {
-                    // Рассчитываем среднюю оценку книги
-                    double averageRating = userBookRepository.findByBookAndRatingIsNotNull(book)
-                            .stream()
-                            .mapToInt(ub -> ub.getRating())
-                            .average()
-                            .orElse(5.0); // Если оценок нет, используем среднее значение 5
-
-                    // Нормализуем оценку от 0 до 1 (предполагая, что максимальная оценка 10)
-                    double normalizedRating = averageRating / 10.0;
-
-                    // Рассчитываем итоговый score, учитывая и жанр, и оценку
-                    // 60% веса отдается жанру, 40% - оценке
-                    double genreScore = count * 0.8;
-                    double ratingScore = normalizedRating * 4.0; // Максимальный вклад оценки - 4.0
-                    double finalScore = genreScore + ratingScore;
-
-                    BookRecommendation recommendation = new BookRecommendation();
-                    recommendation.setUser(user);
-                    recommendation.setBook(book);
-                    recommendation.setScore(finalScore);
-                    recommendation.setCreatedAt(LocalDateTime.now());
-                    recommendation.setRead(false);
-                    recommendations.add(recommendation);
+        // Вклад похожих книг: соседи каждой книги пользователя с учётом его оценки этой книги
+        ItemNeighbours neighbours = itemSimilarityService.getModel();
+        if (neighbours != null) {
+            for (ShelfEntry entry : shelf) {
+                float weight = ItemSimilarityService.interactionWeight(entry.getStatus(), entry.getRating());
+                if (weight > 0f) {
+                    neighbours.forEachNeighbour(entry.getBookId(),
+                            (bookId, similarity) -> scores.add(bookId, SIMILARITY_WEIGHT * weight * similarity));
                 }
             }
         }
 
-        // Сортируем рекомендации по score и сохраняем
-        recommendations.sort((r1, r2) -> Double.compare(r2.getScore(), r1.getScore()));
+        // Оставляем только K лучших кандидатов: куча ограничена, остальные отбрасываются сразу
+        TopK top = new TopK(maxPerUser);
+        scores.forEach((bookId, score) -> {
+            if (Arrays.binarySearch(userBookIds, bookId) >= 0) {
+                return;
+            }
+            // Если оценок нет, используем среднее значение 5
+            double averageRating = ratings.average(bookId, 5.0);
+
+            // Нормализуем оценку от 0 до 1 (предполагая, что максимальная оценка 10)
+            double normalizedRating = averageRating / 10.0;
+            double ratingScore = normalizedRating * 4.0; // Максимальный вклад оценки - 4.0
+            top.offer(bookId, score + ratingScore);
+        });
+
+        // Сохраняем рекомендации по убыванию score
+        long[] bookIds = new long[top.size()];
+        double[] bookScores = new double[top.size()];
+        int count = top.drainDescending(bookIds, bookScores);
+        List<BookRecommendation> recommendations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BookRecommendation recommendation = new BookRecommendation();
+            recommendation.setUser(user);
+            // Ссылка без загрузки книги: для вставки нужен только id
+            recommendation.setBook(bookRepository.getReferenceById(bookIds[i]));
+            recommendation.setScore(bookScores[i]);
+            recommendation.setCreatedAt(LocalDateTime.now());
+            recommendation.setRead(false);
+            recommendations.add(recommendation);
+        }
+        // Заменяем набор целиком: один DELETE и пакетные INSERT (см. hibernate.jdbc.batch_size)
+        recommendationRepository.deleteAllByUserId(user.getId());
         recommendationRepository.saveAll(recommendations);
+        eventPublisher.publishEvent(new RecommendationsChangedEvent(user.getId()));
+    }
+
+    // Средние оценки общие для всех пользователей, перечитываем их не чаще раза в минуту
+    private BookRatings getRatings() {
+        BookRatings current = ratings;
+        long now = System.currentTimeMillis();
+        if (current == null || now - ratingsLoadedAt > RATINGS_TTL_MILLIS) {
+            current = new BookRatings(bookStatsRepository.findRatings());
+            ratings = current;
+            ratingsLoadedAt = now;
+        }
+        return current;
     }
 
     @Transactional
@@ -127,5 +221,6 @@ public class RecommendationService {
         
         recommendation.setRead(true);
         recommendationRepository.save(recommendation);
+        eventPublisher.publishEvent(new RecommendationsChangedEvent(user.getId()));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.example.demo.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.models.Review;
+import com.example.demo.models.ReviewThread;
+import com.example.demo.repositories.ReviewRepository;
+
+/**
+ * Загружает ветки отзывов для страницы книги: страница корневых отзывов
+ * и все ответы на них с авторами за фиксированное число запросов.
+ */
+@Service
+public class ReviewThreadService {
+    private final ReviewRepository reviewRepository;
+
+    public ReviewThreadService(ReviewRepository reviewRepository) {
+        this.reviewRepository = reviewRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public Page<ReviewThread> loadThreads(Long bookId, boolean oldestFirst, int page, int size) {
+        Sort.Direction direction = oldestFirst ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort sort = Sort.by(direction, "createdAt").and(Sort.by(direction, "id"));
+        Page<Review> roots = reviewRepository.findRootPageByBookId(bookId, PageRequest.of(page, size, sort));
+
+        Map<Long, List<Review>> repliesByParent = new HashMap<>();
+        if (roots.hasContent()) {
+            List<Long> rootIds = roots.getContent().stream()
+                    .map(Review::getId)
+                    .toList();
+            for (Review reply : reviewRepository.findRepliesByParentIds(rootIds)) {
+                // parentReview - ленивый прокси, getId() не требует загрузки
+                repliesByParent.computeIfAbsent(reply.getParentReview().getId(), id -> new ArrayList<>())
+                        .add(reply);
+            }
+        }
+
+        return roots.map(root -> new ReviewThread(root, repliesByParent.getOrDefault(root.getId(), List.of())));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.models.UserReadingDaily;
+import com.example.demo.repositories.UserBookRepository;
+import com.example.demo.repositories.UserReadingDailyRepository;
+
+/**
+ * Поддерживает таблицу user_reading_daily, из которой строится статистика чтения.
+ * Изменения применяются дельтами в транзакции изменения полки пользователя,
+ * ночная сверка с user_book исправляет расхождения (например, после смены жанра книги).
+ */
+@Service
+public class UserReadingDailyService {
+    private static final Logger logger = LoggerFactory.getLogger(UserReadingDailyService.class);
+
+    // Пользователей в одной транзакции сверки
+    private static final int REBUILD_RANGE = 1000;
+
+    private final UserReadingDailyRepository userReadingDailyRepository;
+    private final UserBookRepository userBookRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public UserReadingDailyService(UserReadingDailyRepository userReadingDailyRepository,
+                                   UserBookRepository userBookRepository,
+                                   TransactionTemplate transactionTemplate) {
+        this.userReadingDailyRepository = userReadingDailyRepository;
+        this.userBookRepository = userBookRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Вызывается внутри транзакции, изменившей запись UserBook; дата null - книга не прочитана
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyChange(Long userId, String genre, LocalDateTime oldFinishedDate, LocalDateTime newFinishedDate) {
+        if (oldFinishedDate == null ? newFinishedDate == null
+                : newFinishedDate != null && oldFinishedDate.toLocalDate().equals(newFinishedDate.toLocalDate())) {
+            return;
+        }
+        String key = genre != null ? genre : "";
+        if (oldFinishedDate != null) {
+            userReadingDailyRepository.applyDelta(userId, oldFinishedDate.toLocalDate(), key, -1);
+        }
+        if (newFinishedDate != null) {
+            userReadingDailyRepository.applyDelta(userId, newFinishedDate.toLocalDate(), key, 1);
+        }
+    }
+
+    // Сверка с user_book каждую ночь
+    @Scheduled(cron = "0 15 2 * * ?")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long maxUserId = Math.max(nullToZero(userReadingDailyRepository.findMaxUserId()),
+                nullToZero(userBookRepository.findMaxUserId()));
+        int fixed = 0;
+        for (long from = 0; from <= maxUserId; from += REBUILD_RANGE) {
+            long rangeFrom = from;
+            fixed += transactionTemplate.execute(status -> rebuildRange(rangeFrom, rangeFrom + REBUILD_RANGE - 1));
+        }
+        logger.info("Rebuilt user_reading_daily: {} rows fixed in {} ms", fixed, System.currentTimeMillis() - start);
+    }
+
+    // Первичное заполнение таблицы, если она только что создана
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (userReadingDailyRepository.count() == 0 && userBookRepository.count() > 0) {
+            logger.info("user_reading_daily is empty, running initial backfill");
+            rebuild();
+        }
+    }
+
+    // Возвращает число исправленных строк. Лишние строки удаляются до вставки недостающих:
+    // MySQL сравнивает жанры без учёта регистра, и строка с тем же жанром в другом регистре помешала бы вставке
+    private int rebuildRange(long from, long to) {
+        Map<UserReadingDaily.Key, UserReadingDaily> stored = new HashMap<>();
+        for (UserReadingDaily row : userReadingDailyRepository.findByUserIdBetween(from, to)) {
+            stored.put(key(row), row);
+        }
+        List<UserReadingDaily> missing = new ArrayList<>();
+        int fixed = 0;
+        for (UserReadingDaily actual : userReadingDailyRepository.countFromShelves(from, to)) {
+            UserReadingDaily expected = stored.remove(key(actual));
+            if (expected == null) {
+                missing.add(actual);
+            } else if (expected.getCount() != actual.getCount()) {
+                fixed += userReadingDailyRepository.updateIfUnchanged(expected, actual);
+            }
+        }
+        for (UserReadingDaily expected : stored.values()) {
+            fixed += userReadingDailyRepository.deleteIfUnchanged(expected);
+        }
+        for (UserReadingDaily actual : missing) {
+            fixed += userReadingDailyRepository.insertIfAbsent(actual);
+        }
+        return fixed;
+    }
+
+    private static UserReadingDaily.Key key(UserReadingDaily row) {
+        return new UserReadingDaily.Key(row.getUserId(), row.getDay(), row.getGenre());
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.services;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.cache.LruCache;
+import com.example.demo.events.ShelfChangedEvent;
+import com.example.demo.models.User;
+import com.example.demo.models.UserShelf;
+import com.example.demo.repositories.UserBookRepository;
+
+/**
+ * Кэш компактных снимков полок пользователей для отметки статусов книг
+ * в каталоге, поиске и рекомендациях. Сбрасывается после коммита изменения полки.
+ */
+@Service
+public class UserShelfService {
+    private static final int MAX_CACHED_USERS = 10_000;
+
+    private final UserBookRepository userBookRepository;
+    private final LruCache<Long, UserShelf> cache = new LruCache<>(MAX_CACHED_USERS, 0);
+
+    public UserShelfService(UserBookRepository userBookRepository) {
+        this.userBookRepository = userBookRepository;
+    }
+
+    public UserShelf getShelf(User user) {
+        return cache.get(user.getId(), userId -> new UserShelf(userBookRepository.findShelfEntries(userId)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShelfChanged(ShelfChangedEvent event) {
+        cache.invalidate(event.getUserId());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.statistics;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Гистограмма прочитанных книг по дням, месяцам или годам за период.
+ * Корзина адресуется целочисленным индексом (эпохальный день, год * 12 + месяц или год),
+ * счётчики лежат в массиве, выделенном один раз под весь период. Подписи дней и месяцев
+ * форматируются один раз при загрузке класса, подпись года - одна строка на корзину.
+ */
+public final class ReadingHistogram {
+
+    public enum Granularity {
+        DAY,
+        MONTH,
+        YEAR
+    }
+
+    private static final String[] MONTH_LABELS = new String[12];
+    private static final String[][] DAY_LABELS = new String[12][31];
+
+    static {
+        DateTimeFormatter monthFormat = DateTimeFormatter.ofPattern("MMMM");
+        DateTimeFormatter dayFormat = DateTimeFormatter.ofPattern("d MMMM");
+        for (int month = 1; month <= 12; month++) {
+            MONTH_LABELS[month - 1] = LocalDate.of(2000, month, 1).format(monthFormat);
+            // 2000 - високосный, поэтому есть и 29 февраля
+            int days = LocalDate.of(2000, month, 1).lengthOfMonth();
+            for (int day = 1; day <= days; day++) {
+                DAY_LABELS[month - 1][day - 1] = LocalDate.of(2000, month, day).format(dayFormat);
+            }
+        }
+    }
+
+    private final Granularity granularity;
+    private final int first;
+    private final long[] counts;
+
+    // Границы периода включаются
+    public ReadingHistogram(Granularity granularity, LocalDate start, LocalDate end) {
+        this.granularity = granularity;
+        this.first = index(granularity, start.getYear(), start.getMonthValue(), start.getDayOfMonth());
+        int last = index(granularity, end.getYear(), end.getMonthValue(), end.getDayOfMonth());
+        this.counts = new long[Math.max(last - first + 1, 0)];
+    }
+
+    // Для MONTH день не учитывается, для YEAR - месяц и день; значения вне периода пропускаются
+    public void add(int year, int month, int day, long count) {
+        int bucket = index(granularity, year, month, day) - first;
+        if (bucket >= 0 && bucket < counts.length) {
+            counts[bucket] += count;
+        }
+    }
+
+    public int size() {
+        return counts.length;
+    }
+
+    public long count(int bucket) {
+        return counts[bucket];
+    }
+
+    public String label(int bucket) {
+        int index = first + bucket;
+        switch (granularity) {
+            case DAY:
+                LocalDate date = LocalDate.ofEpochDay(index);
+                return DAY_LABELS[date.getMonthValue() - 1][date.getDayOfMonth() - 1];
+            case MONTH:
+                return MONTH_LABELS[Math.floorMod(index, 12)];
+            default:
+                return Integer.toString(index);
+        }
+    }
+
+    // Точки графика статистики чтения: {label, count} по возрастанию периода
+    public List<Map<String, Object>> toChartData() {
+        List<Map<String, Object>> points = new ArrayList<>(counts.length);
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            points.add(Map.of("label", label(bucket), "count", counts[bucket]));
+        }
+        return points;
+    }
+
+    private static int index(Granularity granularity, int year, int month, int day) {
+        switch (granularity) {
+            case DAY:
+                return (int) LocalDate.of(year, month, day).toEpochDay();
+            case MONTH:
+                return year * 12 + month - 1;
+            default:
+                return year;
+        }
+    }
+}
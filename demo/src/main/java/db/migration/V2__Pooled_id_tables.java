@@ -0,0 +1,61 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Таблицы-счётчики для пакетной генерации id (pooled-lo) у book_recommendation,
+ * user_activity и user_book. Каждая таблица заполняется значением MAX(id) + 1,
+ * чтобы новые id не пересеклись с уже выданными через AUTO_INCREMENT.
+ * Схема остальных таблиц создаётся Hibernate (ddl-auto=update), поэтому на пустой базе
+ * исходной таблицы может ещё не быть - тогда счётчик начинается с 1.
+ */
+public class V2__Pooled_id_tables extends BaseJavaMigration {
+
+    private static final String[][] SEQUENCES = {
+            {"book_recommendation_seq", "book_recommendation"},
+            {"user_activity_seq", "user_activity"},
+            {"user_book_seq", "user_book"},
+    };
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        for (String[] sequence : SEQUENCES) {
+            String sequenceTable = sequence[0];
+            String entityTable = sequence[1];
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS " + sequenceTable + " (next_val BIGINT) ENGINE=InnoDB");
+                statement.execute("DELETE FROM " + sequenceTable);
+            }
+            long nextValue = tableExists(connection, entityTable) ? maxId(connection, entityTable) + 1 : 1;
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO " + sequenceTable + " (next_val) VALUES (?)")) {
+                insert.setLong(1, nextValue);
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, table, new String[] {"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.example.demo.models.ReadingPeriodCount;
+import com.example.demo.statistics.ReadingHistogram;
+import com.example.demo.statistics.ReadingHistogram.Granularity;
+
+/**
+ * Построение графика статистики чтения: прежняя реализация на строковых ключах
+ * (форматирование, сортировка и разбор ключей обратно в даты) против {@link ReadingHistogram}.
+ * Проверка совпадения результатов выполняется всегда, замер - только с -Dbenchmark=true:
+ * mvn test -Dtest=ReadingHistogramBenchmarkTest -Dbenchmark=true
+ */
+class ReadingHistogramBenchmarkTest {
+
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    private static final List<ReadingPeriodCount> DAYS = new ArrayList<>();
+    private static final List<ReadingPeriodCount> MONTHS = new ArrayList<>();
+    private static final List<ReadingPeriodCount> YEARS = new ArrayList<>();
+    private static final int FIRST_YEAR = 1995;
+
+    static {
+        for (int day = 1; day <= 29; day += 2) {
+            DAYS.add(new ReadingPeriodCount(2024, 2, day, day % 3 + 1));
+        }
+        for (int month = 1; month <= 12; month++) {
+            MONTHS.add(new ReadingPeriodCount(2024, month, month * 2L));
+        }
+        for (int year = FIRST_YEAR; year <= LocalDate.now().getYear(); year++) {
+            YEARS.add(new ReadingPeriodCount(year, year % 40 + 1));
+        }
+    }
+
+    @Test
+    void histogramMatchesStringBucketing() {
+        assertEquals(points(legacyMonth()), points(histogramMonth()));
+        assertEquals(points(legacyYear()), points(histogramYear()));
+        assertEquals(points(legacyAll()), points(histogramAll()));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void histogramAllocatesLessThanStringBucketing() {
+        measure("month (days)", this::legacyMonth, this::histogramMonth);
+        measure("year (months)", this::legacyYear, this::histogramYear);
+        measure("all (years)", this::legacyAll, this::histogramAll);
+    }
+
+    private List<Map<String, Object>> legacyMonth() {
+        return legacyReadStats(DAYS, LocalDateTime.of(2024, 2, 1, 0, 0), LocalDateTime.of(2024, 2, 29, 23, 59, 59),
+                "month", "yyyy-MM-dd", "d MMMM");
+    }
+
+    private List<Map<String, Object>> legacyYear() {
+        return legacyReadStats(MONTHS, LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 12, 31, 23, 59, 59),
+                "year", "yyyy-MM", "MMMM");
+    }
+
+    private List<Map<String, Object>> legacyAll() {
+        return legacyReadStats(YEARS, LocalDateTime.of(FIRST_YEAR, 1, 1, 0, 0), LocalDateTime.now(),
+                "all", "yyyy", "yyyy");
+    }
+
+    private List<Map<String, Object>> histogramMonth() {
+        return histogram(DAYS, Granularity.DAY, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+    }
+
+    private List<Map<String, Object>> histogramYear() {
+        return histogram(MONTHS, Granularity.MONTH, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31));
+    }
+
+    private List<Map<String, Object>> histogramAll() {
+        return histogram(YEARS, Granularity.YEAR, LocalDate.of(FIRST_YEAR, 1, 1), LocalDate.now());
+    }
+
+    private static List<Map<String, Object>> histogram(List<ReadingPeriodCount> counts, Granularity granularity,
+                                                       LocalDate start, LocalDate end) {
+        ReadingHistogram histogram = new ReadingHistogram(granularity, start, end);
+        for (ReadingPeriodCount count : counts) {
+            histogram.add(count.getYear(), count.getMonth(), count.getDay(), count.getCount());
+        }
+        return histogram.toChartData();
+    }
+
+    private static void measure(String name, Supplier<List<Map<String, Object>>> legacy,
+                                Supplier<List<Map<String, Object>>> histogram) {
+        long[] before = run(legacy);
+        long[] after = run(histogram);
+        System.out.printf("reading statistics, %s: string keys %d ns/op, %d B/op; " +
+                        "histogram %d ns/op, %d B/op; speedup x%.1f, allocations /%.1f%n",
+                name, before[0], before[1], after[0], after[1],
+                (double) before[0] / after[0], (double) before[1] / Math.max(after[1], 1));
+    }
+
+    // {нс на вызов, байт на вызов}
+    private static long[] run(Supplier<List<Map<String, Object>>> action) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += action.get().size();
+        }
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += action.get().size();
+        }
+        long elapsed = System.nanoTime() - start;
+        bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+        if (sink == 0) {
+            throw new IllegalStateException("empty result");
+        }
+        return new long[] {elapsed / ITERATIONS, bytes / ITERATIONS};
+    }
+
+    private static List<List<Object>> points(List<Map<String, Object>> stats) {
+        return stats.stream().map(point -> List.of(point.get("label"), point.get("count"))).toList();
+    }
+
+    // Прежний StatisticsController.getReadStats
+    private static List<Map<String, Object>> legacyReadStats(List<ReadingPeriodCount> counts, LocalDateTime startDate,
+            LocalDateTime endDate, String type, String dateFormat, String labelFormat) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(dateFormat);
+
+        Map<String, Long> periodCount = new LinkedHashMap<>();
+        LocalDateTime currentDate = startDate;
+        while (!currentDate.isAfter(endDate)) {
+            String periodKey = currentDate.format(formatter);
+            periodCount.put(periodKey, 0L);
+            if (type.equals("month")) {
+                currentDate = currentDate.plusDays(1);
+            } else if (type.equals("year")) {
+                currentDate = currentDate.plusMonths(1);
+            } else {
+                currentDate = currentDate.plusYears(1);
+            }
+        }
+
+        for (ReadingPeriodCount count : counts) {
+            periodCount.merge(count.getStart().format(formatter), count.getCount(), Long::sum);
+        }
+
+        return periodCount.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(entry -> {
+                Map<String, Object> periodData = new HashMap<>();
+                LocalDateTime date = LocalDateTime.parse(entry.getKey() +
+                    (type.equals("month") ? "T00:00:00" :
+                     type.equals("year") ? "-01T00:00:00" : "-01-01T00:00:00"));
+                periodData.put("label", date.format(DateTimeFormatter.ofPattern(labelFormat)));
+                periodData.put("count", entry.getValue());
+                return periodData;
+            })
+            .collect(Collectors.toList());
+    }
+}
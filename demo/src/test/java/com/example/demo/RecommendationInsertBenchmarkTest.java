@@ -0,0 +1,97 @@
+package com.example.demo;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.models.Book;
+import com.example.demo.models.BookRecommendation;
+import com.example.demo.models.User;
+import com.example.demo.repositories.BookRecommendationRepository;
+import com.example.demo.repositories.BookRepository;
+import com.example.demo.repositories.UserRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Пропускная способность вставки рекомендаций: по одному INSERT на строку (как было при IDENTITY)
+ * против пакетной вставки с id из пула. Требует MySQL с данными, запуск:
+ * mvn test -Dtest=RecommendationInsertBenchmarkTest -Dbenchmark=true
+ * Все вставки откатываются.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RecommendationInsertBenchmarkTest {
+
+    private static final int ROWS = 5_000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private BookRecommendationRepository recommendationRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void batchedInsertsAreFasterThanRowByRow() {
+        List<User> users = userRepository.findAll(PageRequest.of(0, 1)).getContent();
+        List<Book> books = bookRepository.findPageAfter(null, PageRequest.of(0, 100));
+        Assumptions.assumeFalse(users.isEmpty() || books.isEmpty(), "benchmark needs at least one user and book");
+        User user = users.get(0);
+
+        // Прогрев
+        insert(user, books, 1);
+        insert(user, books, 50);
+
+        long rowByRow = Long.MAX_VALUE;
+        long batched = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            rowByRow = Math.min(rowByRow, insert(user, books, 1));
+            batched = Math.min(batched, insert(user, books, 50));
+        }
+        System.out.printf("book_recommendation inserts, %d rows: row-by-row %d ms (%.0f rows/s), " +
+                        "batched %d ms (%.0f rows/s), speedup x%.1f%n",
+                ROWS, rowByRow, ROWS * 1000.0 / rowByRow, batched, ROWS * 1000.0 / batched,
+                (double) rowByRow / batched);
+    }
+
+    private long insert(User user, List<Book> books, int batchSize) {
+        return transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            List<BookRecommendation> recommendations = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                BookRecommendation recommendation = new BookRecommendation();
+                recommendation.setUser(user);
+                recommendation.setBook(books.get(i % books.size()));
+                recommendation.setScore(i);
+                recommendation.setCreatedAt(LocalDateTime.now());
+                recommendations.add(recommendation);
+            }
+            long start = System.nanoTime();
+            recommendationRepository.saveAll(recommendations);
+            entityManager.flush();
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            entityManager.clear();
+            status.setRollbackOnly();
+            return Math.max(elapsed, 1);
+        });
+    }
+}
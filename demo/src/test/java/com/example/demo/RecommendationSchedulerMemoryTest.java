@@ -0,0 +1,121 @@
+package com.example.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.example.demo.models.RecommendationRun;
+import com.example.demo.models.RecommendationRunStatus;
+import com.example.demo.repositories.RecommendationRunRepository;
+import com.example.demo.services.RecommendationChangeTracker;
+import com.example.demo.services.RecommendationScheduler;
+import com.example.demo.services.RecommendationService;
+
+/**
+ * Память пересчёта рекомендаций не растёт с числом пользователей: прогон по синтетическому
+ * журналу id без базы данных. Моки только отвечают на вызовы и не запоминают их,
+ * иначе память съели бы сами моки. Окно выданных, но не обработанных id проверяется всегда
+ * на небольшом журнале, замер кучи на 3 млн id - только с -Dbenchmark=true:
+ * mvn test -Dtest=RecommendationSchedulerMemoryTest -Dbenchmark=true
+ */
+class RecommendationSchedulerMemoryTest {
+
+    private static final long USERS = 50_000;
+    private static final long BENCHMARK_USERS = 3_000_000;
+    private static final int PARALLELISM = 4;
+    private static final int CHUNK_SIZE = 1_000;
+    private static final long SAMPLE_EVERY = 250_000;
+    // Все id сразу в памяти заняли бы ~60 МБ
+    private static final long MAX_HEAP_GROWTH = 24L * 1024 * 1024;
+
+    private final AtomicLong handedOut = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong maxOutstanding = new AtomicLong();
+    private final AtomicLong maxHeapUsed = new AtomicLong();
+
+    @Test
+    void keepsOutstandingIdsWithinWindow() {
+        RecommendationScheduler scheduler = scheduler(USERS, false);
+        scheduler.runUpdate();
+
+        assertEquals(USERS, processed.get());
+        assertOutstandingWithinWindow();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void walksLargeUserSetWithBoundedMemory() {
+        RecommendationScheduler scheduler = scheduler(BENCHMARK_USERS, true);
+        long baseline = usedHeap();
+        scheduler.runUpdate();
+
+        assertEquals(BENCHMARK_USERS, processed.get());
+        assertOutstandingWithinWindow();
+        assertTrue(maxHeapUsed.get() - baseline < MAX_HEAP_GROWTH,
+                "heap growth: " + (maxHeapUsed.get() - baseline) / 1024 + " KB");
+    }
+
+    // Выдано, но не обработано - не больше окна диапазонов и одного прочитанного наперёд
+    private void assertOutstandingWithinWindow() {
+        assertTrue(maxOutstanding.get() <= (PARALLELISM * 2L + 1) * CHUNK_SIZE,
+                "outstanding ids: " + maxOutstanding.get());
+    }
+
+    private RecommendationScheduler scheduler(long users, boolean sampleHeap) {
+        RecommendationService recommendationService = mock(RecommendationService.class, withSettings().stubOnly());
+        RecommendationChangeTracker changeTracker = mock(RecommendationChangeTracker.class, withSettings().stubOnly());
+        RecommendationRunRepository runRepository = mock(RecommendationRunRepository.class, withSettings().stubOnly());
+
+        when(changeTracker.prepareRun()).thenReturn(LocalDateTime.now());
+        when(changeTracker.countDirtyUsers()).thenReturn(users);
+        when(changeTracker.findDirtyUserIds(any(), anyInt())).thenAnswer(invocation -> {
+            Long afterId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            long from = afterId == null ? 1 : afterId + 1;
+            List<Long> ids = new ArrayList<>(limit);
+            for (long id = from; id <= users && ids.size() < limit; id++) {
+                ids.add(id);
+            }
+            long outstanding = handedOut.addAndGet(ids.size()) - processed.get();
+            maxOutstanding.accumulateAndGet(outstanding, Math::max);
+            return ids;
+        });
+        when(runRepository.findFirstByStatusOrderByIdDesc(RecommendationRunStatus.RUNNING)).thenReturn(Optional.empty());
+        when(runRepository.save(any())).thenAnswer(invocation -> {
+            RecommendationRun run = invocation.getArgument(0);
+            run.setId(1L);
+            return run;
+        });
+        doAnswer(invocation -> {
+            long count = processed.incrementAndGet();
+            if (sampleHeap && count % SAMPLE_EVERY == 0) {
+                maxHeapUsed.accumulateAndGet(usedHeap(), Math::max);
+            }
+            return null;
+        }).when(recommendationService).generateRecommendations(anyLong());
+
+        return new RecommendationScheduler(recommendationService, changeTracker, runRepository,
+                PARALLELISM, CHUNK_SIZE);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.models.RecommendationRun;
+import com.example.demo.models.RecommendationRunStatus;
+import com.example.demo.repositories.RecommendationRunRepository;
+import com.example.demo.services.RecommendationChangeTracker;
+import com.example.demo.services.RecommendationScheduler;
+import com.example.demo.services.RecommendationService;
+
+/**
+ * Остановка приложения посреди пересчёта: запуск остаётся RUNNING, а сохранённые счётчики
+ * совпадают с контрольной точкой, чтобы продолжение не учло пользователей дважды.
+ */
+class RecommendationSchedulerResumeTest {
+
+    private static final long USERS = 100_000;
+    private static final long STOP_AFTER = 5_000;
+    private static final int PARALLELISM = 4;
+    private static final int CHUNK_SIZE = 100;
+
+    @Test
+    void shutdownKeepsRunResumable() throws Exception {
+        RecommendationService recommendationService = mock(RecommendationService.class);
+        RecommendationChangeTracker changeTracker = mock(RecommendationChangeTracker.class);
+        RecommendationRunRepository runRepository = mock(RecommendationRunRepository.class);
+
+        when(changeTracker.prepareRun()).thenReturn(LocalDateTime.now());
+        when(changeTracker.countDirtyUsers()).thenReturn(USERS);
+        when(changeTracker.findDirtyUserIds(any(), anyInt())).thenAnswer(invocation -> {
+            Long afterId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            long from = afterId == null ? 1 : afterId + 1;
+            List<Long> ids = new ArrayList<>(limit);
+            for (long id = from; id <= USERS && ids.size() < limit; id++) {
+                ids.add(id);
+            }
+            return ids;
+        });
+        when(runRepository.findFirstByStatusOrderByIdDesc(RecommendationRunStatus.RUNNING)).thenReturn(Optional.empty());
+        when(runRepository.save(any())).thenAnswer(invocation -> {
+            RecommendationRun run = invocation.getArgument(0);
+            run.setId(1L);
+            return run;
+        });
+        // Последняя сохранённая контрольная точка: {lastUserId, processed}
+        AtomicReference<long[]> saved = new AtomicReference<>();
+        doAnswer(invocation -> {
+            saved.set(new long[] {invocation.getArgument(1), invocation.getArgument(2)});
+            return null;
+        }).when(runRepository).updateProgress(eq(1L), any(), anyLong(), anyLong(), anyLong(), any());
+
+        AtomicLong processed = new AtomicLong();
+        CountDownLatch reached = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (processed.incrementAndGet() == STOP_AFTER) {
+                reached.countDown();
+            }
+            // Медленные пользователи, чтобы остановка застала диапазоны в работе
+            Thread.sleep(1);
+            return null;
+        }).when(recommendationService).generateRecommendations(anyLong());
+
+        RecommendationScheduler scheduler = new RecommendationScheduler(recommendationService, changeTracker,
+                runRepository, PARALLELISM, CHUNK_SIZE);
+        scheduler.updateRecommendations();
+        assertTrue(reached.await(1, TimeUnit.MINUTES));
+        scheduler.shutdown();
+
+        verify(runRepository, never()).finish(anyLong(), any(), any(), anyLong());
+        long[] checkpoint = saved.get();
+        assertNotNull(checkpoint);
+        assertTrue(checkpoint[0] < USERS, "checkpoint: " + checkpoint[0]);
+        // id идут подряд с 1, поэтому до контрольной точки обработано ровно lastUserId пользователей
+        assertEquals(checkpoint[0], checkpoint[1]);
+    }
+}